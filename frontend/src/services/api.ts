@@ -36,6 +36,28 @@ export const uploadImage = async (file: File, placeName: string): Promise<ImageD
   return response.data;
 };
 
+export interface ImageUploadResult {
+  fileName: string;
+  status: 'created' | 'duplicate' | 'error';
+  imageId?: string;
+  error?: string;
+}
+
+export const uploadImages = async (files: File[], placeName: string): Promise<ImageUploadResult[]> => {
+  const formData = new FormData();
+  files.forEach((file) => formData.append('files', file));
+  formData.append('placeName', placeName);
+
+  const response = await axios.post(`${API_BASE_URL}/api/images/upload/bulk`, formData, {
+    headers: {
+      'Content-Type': 'multipart/form-data',
+    },
+    validateStatus: (status) => status === 201 || status === 207,
+  });
+
+  return response.data;
+};
+
 export const getImage = async (id: string): Promise<string> => {
   const response = await axios.get(`${API_BASE_URL}/${id}`, {
     responseType: 'arraybuffer',
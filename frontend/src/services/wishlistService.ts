@@ -12,6 +12,11 @@ export const getAllWishlists = async () => {
   return response.data;
 };
 
+export const listWishlists = async (cursor?: string, limit = 100) => {
+  const response = await axios.get(`${API_BASE_URL}/wishlists`, { params: { cursor, limit } });
+  return response.data as { items: { name: string; placeCount: number }[]; nextCursor: string | null };
+};
+
 export const addToWishlist = async (wishlistName: string, placeName: string) => {
   const response = await axios.post(
     `${API_BASE_URL}/wishlists/${encodeURIComponent(wishlistName)}/places`,
@@ -36,3 +41,69 @@ export const removeFromWishlist = async (wishlistName: string, placeName: string
   );
   return response.data;
 };
+
+export interface WishlistItem {
+  id: string;
+  wishlistName: string;
+  placeName: string;
+  notes: string | null;
+  addedOn: string;
+  visited: boolean;
+  visitedOn: string | null;
+}
+
+export const listWishlistItems = async (
+  name: string,
+  options: { cursor?: string; limit?: number; visited?: boolean } = {}
+) => {
+  const response = await axios.get(`${API_BASE_URL}/wishlists/${encodeURIComponent(name)}/items`, {
+    params: { cursor: options.cursor, limit: options.limit ?? 100, visited: options.visited },
+  });
+  return response.data as { items: WishlistItem[]; nextCursor: string | null };
+};
+
+export const getWishlistCounts = async (name: string) => {
+  const response = await axios.get(`${API_BASE_URL}/wishlists/${encodeURIComponent(name)}/counts`);
+  return response.data as { name: string; total: number; visited: number; unvisited: number };
+};
+
+export const updateWishlistItem = async (
+  wishlistName: string,
+  placeName: string,
+  changes: { visited?: boolean; notes?: string }
+) => {
+  const response = await axios.patch(
+    `${API_BASE_URL}/wishlists/${encodeURIComponent(wishlistName)}/items/${encodeURIComponent(placeName)}`,
+    changes
+  );
+  return response.data as WishlistItem;
+};
+
+export const getWishlists = async (names: string[]) => {
+  const response = await axios.post(`${API_BASE_URL}/wishlists/batch/get`, { names });
+  return response.data;
+};
+
+export interface WishlistPlaceChange {
+  wishlistName: string;
+  placeName: string;
+  action: 'ADD' | 'REMOVE';
+}
+
+export const updateWishlistPlaces = async (changes: WishlistPlaceChange[]) => {
+  const response = await axios.post(`${API_BASE_URL}/wishlists/batch/places`, { changes });
+  return response.data;
+};
+
+export type WishlistEventType = 'place_added' | 'place_removed' | 'wishlist_deleted';
+
+export const subscribeToWishlist = (
+  name: string,
+  onEvent: (type: WishlistEventType, event: { wishlistName: string; placeName: string | null }) => void
+) => {
+  const source = new EventSource(`${API_BASE_URL}/wishlists/${encodeURIComponent(name)}/events`);
+  (['place_added', 'place_removed', 'wishlist_deleted'] as WishlistEventType[]).forEach((type) =>
+    source.addEventListener(type, (message) => onEvent(type, JSON.parse((message as MessageEvent).data)))
+  );
+  return () => source.close();
+};
@@ -0,0 +1,231 @@
+package com.futurize.triply.benchmark;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageDigest;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.ImageService;
+import com.futurize.triply.service.ImageVariantService;
+import com.futurize.triply.service.ItineraryIndex;
+import com.futurize.triply.service.PerceptualHashIndex;
+import com.futurize.triply.service.PlaceSuggestionIndex;
+import com.futurize.triply.service.RequestCoalescer;
+import com.futurize.triply.service.WishlistCache;
+import com.futurize.triply.service.WishlistEventBroadcaster;
+import com.futurize.triply.service.WishlistService;
+import com.futurize.triply.storage.FileSystemBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Wires the real services to {@link InMemoryRepository} stand-ins.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    static InMemoryRepository<ImageData> images() {
+        return new InMemoryRepository<ImageData>(ImageData::getId, ImageData::setId)
+                .query("findByPlaceName", (docs, a) -> docs.values().stream()
+                        .filter(image -> a[0].equals(image.getPlaceName()))
+                        .collect(Collectors.toList()))
+                .query("countByPlaceName", (docs, a) -> docs.values().stream()
+                        .filter(image -> a[0].equals(image.getPlaceName()))
+                        .count())
+                .query("findSummariesAfter", (docs, a) -> page(docs, (String) a[0], (int) a[1], null))
+                .query("findSummariesByPlaceNameAfter",
+                        (docs, a) -> page(docs, (String) a[1], (int) a[2], (String) a[0]))
+                .query("findPerceptualHashesAfter", (docs, a) -> page(docs, (String) a[0], (int) a[1], null)
+                        .stream()
+                        .filter(image -> image.getPerceptualHash() != null)
+                        .collect(Collectors.toList()));
+    }
+
+    static InMemoryRepository<ImageDigest> imageDigests() {
+        return new InMemoryRepository<>(ImageDigest::getId, ImageDigest::setId);
+    }
+
+    static InMemoryRepository<Itinerary> itineraries() {
+        return new InMemoryRepository<Itinerary>(Itinerary::getId, Itinerary::setId)
+                .query("findByNormalizedPlaceName", (docs, a) -> docs.values().stream()
+                        .filter(itinerary -> a[0].equals(ItineraryIndex.normalize(itinerary.getPlaceName())))
+                        .findFirst())
+                .query("findModifiedSince", (docs, a) -> List.of());
+    }
+
+    static InMemoryRepository<Wishlist> wishlists() {
+        return new InMemoryRepository<Wishlist>(Wishlist::getId, Wishlist::setId)
+                .query("findAllWishlists", (docs, a) -> new ArrayList<>(docs.values()))
+                .query("findNamesAfter", (docs, a) -> docs.values().stream()
+                        .filter(wishlist -> wishlist.getName().compareTo((String) a[0]) > 0)
+                        .sorted(Comparator.comparing(Wishlist::getName))
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .query("findInlinePlacesAfter", (docs, a) -> docs.tailMap((String) a[0], false).values().stream()
+                        .filter(wishlist -> !wishlist.getPlaceNames().isEmpty())
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .query("insert", (docs, a) -> {
+                    Wishlist wishlist = (Wishlist) a[0];
+                    if (docs.putIfAbsent(wishlist.getId(), wishlist) != null) {
+                        throw new DuplicateKeyException(wishlist.getId());
+                    }
+                    return wishlist;
+                })
+                .query("adjustPlaceCount", (docs, a) -> {
+                    Wishlist wishlist = docs.get((String) a[0]);
+                    if (wishlist == null) {
+                        return false;
+                    }
+                    synchronized (wishlist) {
+                        wishlist.setPlaceCount(wishlist.getPlaceCount() + (int) a[1]);
+                    }
+                    return true;
+                })
+                .query("removeInlinePlace", (docs, a) -> {
+                    Wishlist wishlist = docs.get((String) a[0]);
+                    if (wishlist == null) {
+                        return false;
+                    }
+                    synchronized (wishlist) {
+                        Set<String> places = new HashSet<>(wishlist.getPlaceNames());
+                        if (!places.remove((String) a[1])) {
+                            return false;
+                        }
+                        int placeCount = wishlist.getPlaceCount();
+                        wishlist.setPlaceNames(places);
+                        wishlist.setPlaceCount(placeCount - 1);
+                    }
+                    return true;
+                })
+                .query("clearInlinePlaces", (docs, a) -> {
+                    Wishlist wishlist = docs.get((String) a[0]);
+                    if (wishlist == null) {
+                        return false;
+                    }
+                    synchronized (wishlist) {
+                        wishlist.setPlaceNames(new HashSet<>());
+                        wishlist.setPlaceCount(((IntSupplier) a[1]).getAsInt());
+                    }
+                    return true;
+                });
+    }
+
+    static InMemoryRepository<WishlistItem> wishlistItems() {
+        Comparator<WishlistItem> order =
+                Comparator.comparing(WishlistItem::getAddedOn).thenComparing(WishlistItem::getId);
+        return new InMemoryRepository<WishlistItem>(WishlistItem::getId, WishlistItem::setId)
+                .query("findPageAfter", (docs, a) -> itemsAfter(docs, a, order)
+                        .limit((int) a[3])
+                        .collect(Collectors.toList()))
+                .query("findPageByVisitedAfter", (docs, a) -> itemsAfter(docs, a, order)
+                        .filter(item -> item.isVisited() == (boolean) a[3])
+                        .limit((int) a[4])
+                        .collect(Collectors.toList()))
+                .query("findPlaceNames", (docs, a) -> docs.values().stream()
+                        .filter(item -> a[0].equals(item.getWishlistName()))
+                        .sorted(order)
+                        .collect(Collectors.toList()))
+                .query("findPlaceNamesIn", (docs, a) -> docs.values().stream()
+                        .filter(item -> ((List<?>) a[0]).contains(item.getWishlistName()))
+                        .sorted(Comparator.comparing(WishlistItem::getWishlistName).thenComparing(order))
+                        .collect(Collectors.toList()))
+                .query("findPlaceNamesAfter", (docs, a) -> docs.tailMap((String) a[0], false).values().stream()
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .query("countByWishlistName", (docs, a) -> docs.values().stream()
+                        .filter(item -> a[0].equals(item.getWishlistName()))
+                        .count())
+                .query("countByWishlistNameAndVisited", (docs, a) -> docs.values().stream()
+                        .filter(item -> a[0].equals(item.getWishlistName()) && item.isVisited() == (boolean) a[1])
+                        .count())
+                .query("insertIfAbsent", (docs, a) -> {
+                    WishlistItem item = (WishlistItem) a[0];
+                    return docs.putIfAbsent(item.getId(), item) == null;
+                })
+                .query("removeIfPresent", (docs, a) -> docs.remove((String) a[0]) != null)
+                .query("removeAllForWishlist", (docs, a) -> {
+                    int before = docs.size();
+                    docs.values().removeIf(item -> a[0].equals(item.getWishlistName()));
+                    return before - docs.size();
+                });
+    }
+
+    static PlaceSuggestionIndex placeSuggestionIndex(ImageRepository images, WishlistRepository wishlists,
+                                                     WishlistItemRepository wishlistItems) {
+        return new PlaceSuggestionIndex(itineraries().as(ItineraryRepository.class), images, wishlists,
+                wishlistItems);
+    }
+
+    static ImageService imageService(ImageRepository images, ImageDigestRepository digests,
+                                     PerceptualHashIndex perceptualHashIndex) throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(
+                Files.createTempDirectory("triply-bench-blobs").toString());
+        ImageVariantService variants = new ImageVariantService(
+                blobStore, images, new SimpleMeterRegistry(), 1, 100, Duration.ofSeconds(5));
+        return new ImageService(images, digests, perceptualHashIndex, blobStore, variants,
+                placeSuggestionIndex(images, wishlists().as(WishlistRepository.class),
+                        wishlistItems().as(WishlistItemRepository.class)),
+                requestCoalescer(true), new SimpleMeterRegistry(), 10);
+    }
+
+    static RequestCoalescer requestCoalescer(boolean enabled) {
+        return new RequestCoalescer(new SimpleMeterRegistry(), Duration.ofSeconds(30), enabled);
+    }
+
+    static WishlistService wishlistService(WishlistRepository wishlists, WishlistItemRepository wishlistItems,
+                                           long cacheSize) {
+        WishlistCache cache = new WishlistCache(new SimpleMeterRegistry(), cacheSize, Duration.ofSeconds(30));
+        return new WishlistService(wishlists, wishlistItems, cache, Schedulers.boundedElastic(),
+                placeSuggestionIndex(images().as(ImageRepository.class), wishlists, wishlistItems),
+                new WishlistEventBroadcaster(new SimpleMeterRegistry(), 32, Duration.ofMinutes(30)),
+                requestCoalescer(true), 16);
+    }
+
+    private static Stream<WishlistItem> itemsAfter(NavigableMap<String, WishlistItem> docs, Object[] a,
+                                                   Comparator<WishlistItem> order) {
+        LocalDateTime afterAddedOn = (LocalDateTime) a[1];
+        String afterId = (String) a[2];
+        return docs.values().stream()
+                .filter(item -> a[0].equals(item.getWishlistName()))
+                .filter(item -> item.getAddedOn().isAfter(afterAddedOn)
+                        || (item.getAddedOn().equals(afterAddedOn) && item.getId().compareTo(afterId) > 0))
+                .sorted(order);
+    }
+
+    private static List<ImageData> page(NavigableMap<String, ImageData> docs, String afterId, int limit,
+                                        String placeName) {
+        List<ImageData> page = new ArrayList<>(limit);
+        for (Map.Entry<String, ImageData> entry : docs.tailMap(afterId, false).entrySet()) {
+            if (placeName == null || placeName.equals(entry.getValue().getPlaceName())) {
+                page.add(entry.getValue());
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,107 @@
+package com.futurize.triply.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.futurize.triply.controller.ImageController;
+import com.futurize.triply.controller.PageResponseWriter;
+import com.futurize.triply.controller.WishlistController;
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.ImageBulkUploadService;
+import com.futurize.triply.service.ImageService;
+import com.futurize.triply.service.PerceptualHashIndex;
+import com.futurize.triply.service.WishlistEventBroadcaster;
+import com.futurize.triply.service.WishlistService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Full MVC dispatch (routing, argument binding, JSON conversion) through MockMvc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerBenchmark {
+
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryRepository<ImageData> images = BenchmarkFixtures.images();
+        for (int i = 0; i < 1000; i++) {
+            ImageData image = new ImageData();
+            image.setId(String.format("image-%05d", i));
+            image.setFileName("photo-" + i + ".jpg");
+            image.setFileType("image/jpeg");
+            image.setPlaceName("Place " + (i % 50));
+            image.setSize(2_000_000);
+            images.documents().put(image.getId(), image);
+        }
+        InMemoryRepository<Wishlist> wishlists = BenchmarkFixtures.wishlists();
+        WishlistService wishlistService = BenchmarkFixtures.wishlistService(
+                wishlists.as(WishlistRepository.class),
+                BenchmarkFixtures.wishlistItems().as(WishlistItemRepository.class), 10_000);
+        wishlistService.createWishlist("summer");
+        for (int p = 0; p < 50; p++) {
+            wishlistService.addPlaceToWishlist("summer", "Place " + p);
+        }
+
+        PageResponseWriter pageResponseWriter =
+                new PageResponseWriter(new ObjectMapper().registerModule(new JavaTimeModule()));
+        ImageService imageService = BenchmarkFixtures.imageService(images.as(ImageRepository.class),
+                BenchmarkFixtures.imageDigests().as(ImageDigestRepository.class),
+                new PerceptualHashIndex());
+        ImageController imageController = new ImageController(imageService,
+                new ImageBulkUploadService(imageService, images.as(ImageRepository.class),
+                        new SimpleMeterRegistry(), 1, 1),
+                pageResponseWriter, new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders.standaloneSetup(imageController, new WishlistController(wishlistService,
+                new WishlistEventBroadcaster(new SimpleMeterRegistry(), 32, Duration.ofMinutes(30)), pageResponseWriter)).build();
+    }
+
+    @Benchmark
+    public MvcResult getWishlist() throws Exception {
+        return mockMvc.perform(get("/api/wishlists/summer")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult addPlaceToWishlist() throws Exception {
+        return mockMvc.perform(post("/api/wishlists/summer/places")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"placeName\":\"Place 1\"}")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult listImages() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/images").param("limit", "100")).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn();
+    }
+}
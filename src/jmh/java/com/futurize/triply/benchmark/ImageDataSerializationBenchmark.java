@@ -0,0 +1,67 @@
+package com.futurize.triply.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of an {@link ImageData} with inline bytes, as returned by
+ * the upload endpoint and by listings of images stored before the blob store,
+ * against the metadata-only {@link ImageSummary}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageDataSerializationBenchmark {
+
+    @Param({"10240", "1048576", "10485760"})
+    private int dataSize;
+
+    private ObjectMapper objectMapper;
+    private ImageData image;
+    private ImageSummary summary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        byte[] data = new byte[dataSize];
+        new SplittableRandom(7).nextBytes(data);
+        image = new ImageData();
+        image.setId("image-1");
+        image.setFileName("photo.jpg");
+        image.setFileType("image/jpeg");
+        image.setPlaceName("Lisbon");
+        image.setSize(dataSize);
+        image.setData(data);
+        summary = ImageSummary.from(image);
+    }
+
+    @Benchmark
+    public byte[] serializeWithData() throws Exception {
+        return objectMapper.writeValueAsBytes(image);
+    }
+
+    @Benchmark
+    public byte[] serializeSummary() throws Exception {
+        return objectMapper.writeValueAsBytes(summary);
+    }
+}
@@ -0,0 +1,122 @@
+package com.futurize.triply.benchmark;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageDigest;
+import com.futurize.triply.model.ImageMatch;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.service.ImageService;
+import com.futurize.triply.service.PerceptualHashIndex;
+import com.futurize.triply.util.ContentDigests;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact and near-duplicate image lookup as the catalogue grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogueSize;
+
+    private ImageService imageService;
+    private MockMultipartFile storedFile;
+    private MockMultipartFile unknownFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryRepository<ImageData> images = BenchmarkFixtures.images();
+        InMemoryRepository<ImageDigest> digests = BenchmarkFixtures.imageDigests();
+        PerceptualHashIndex perceptualHashIndex = new PerceptualHashIndex();
+        imageService = BenchmarkFixtures.imageService(images.as(ImageRepository.class),
+                digests.as(ImageDigestRepository.class), perceptualHashIndex);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < catalogueSize; i++) {
+            byte[] content = new byte[64];
+            random.nextBytes(content);
+            String sha256 = ContentDigests.toHex(ContentDigests.newSha256().digest(content));
+            index(images, digests, perceptualHashIndex, "image-" + i, "Place " + (i % 500),
+                    sha256, content.length, random.nextLong());
+        }
+
+        byte[] stored = encodedImage(1);
+        byte[] unknown = encodedImage(2);
+        String sha256 = ContentDigests.toHex(ContentDigests.newSha256().digest(stored));
+        index(images, digests, perceptualHashIndex, "stored", "Stored Place", sha256, stored.length, 0L);
+        storedFile = new MockMultipartFile("file", "stored.png", "image/png", stored);
+        unknownFile = new MockMultipartFile("file", "unknown.png", "image/png", unknown);
+    }
+
+    @Benchmark
+    public Optional<ImageData> findSimilarImageHit() throws IOException {
+        return imageService.findSimilarImage(storedFile);
+    }
+
+    @Benchmark
+    public Optional<ImageData> findSimilarImageMiss() throws IOException {
+        return imageService.findSimilarImage(unknownFile);
+    }
+
+    @Benchmark
+    public List<ImageMatch> findNearestImages() throws IOException {
+        return imageService.findNearestImages(unknownFile, 5);
+    }
+
+    private static void index(InMemoryRepository<ImageData> images, InMemoryRepository<ImageDigest> digests,
+                              PerceptualHashIndex perceptualHashIndex, String id, String placeName,
+                              String sha256, long size, long perceptualHash) {
+        ImageData image = new ImageData();
+        image.setId(id);
+        image.setPlaceName(placeName);
+        image.setFileType("image/png");
+        image.setSize(size);
+        image.setContentHash(sha256);
+        image.setPerceptualHash(perceptualHash);
+        images.documents().put(id, image);
+
+        ImageDigest digest = new ImageDigest(sha256, size);
+        digest.addReference(id);
+        digests.documents().put(digest.getId(), digest);
+        perceptualHashIndex.add(perceptualHash, id, placeName);
+    }
+
+    private static byte[] encodedImage(int seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                image.setRGB(x, y, random.nextInt(0xffffff));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,115 @@
+package com.futurize.triply.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-in for a Couchbase repository interface, so the services can
+ * be benchmarked without a cluster. CRUD methods are handled generically; query
+ * and custom methods are registered by name with {@link #query}.
+ */
+final class InMemoryRepository<T> implements InvocationHandler {
+
+    private final NavigableMap<String, T> documents = new ConcurrentSkipListMap<>();
+    private final Map<String, BiFunction<NavigableMap<String, T>, Object[], Object>> queries = new HashMap<>();
+    private final Function<T, String> idOf;
+    private final BiConsumer<T, String> assignId;
+
+    InMemoryRepository(Function<T, String> idOf, BiConsumer<T, String> assignId) {
+        this.idOf = idOf;
+        this.assignId = assignId;
+    }
+
+    InMemoryRepository<T> query(String methodName, BiFunction<NavigableMap<String, T>, Object[], Object> impl) {
+        queries.put(methodName, impl);
+        return this;
+    }
+
+    <R> R as(Class<R> repositoryType) {
+        return repositoryType.cast(Proxy.newProxyInstance(
+                repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, this));
+    }
+
+    NavigableMap<String, T> documents() {
+        return documents;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object[] a = args == null ? new Object[0] : args;
+        BiFunction<NavigableMap<String, T>, Object[], Object> query = queries.get(method.getName());
+        if (query != null) {
+            return query.apply(documents, a);
+        }
+        switch (method.getName()) {
+            case "save":
+                return save((T) a[0]);
+            case "saveAll": {
+                List<T> saved = new ArrayList<>();
+                ((Iterable<T>) a[0]).forEach(entity -> saved.add(save(entity)));
+                return saved;
+            }
+            case "findById":
+                return Optional.ofNullable(documents.get((String) a[0]));
+            case "existsById":
+                return documents.containsKey((String) a[0]);
+            case "findAllById": {
+                List<T> found = new ArrayList<>();
+                ((Iterable<String>) a[0]).forEach(id -> Optional.ofNullable(documents.get(id)).ifPresent(found::add));
+                return found;
+            }
+            case "deleteById":
+                documents.remove((String) a[0]);
+                return null;
+            case "delete":
+                documents.remove(idOf.apply((T) a[0]));
+                return null;
+            case "deleteAll":
+                if (a.length == 0) {
+                    documents.clear();
+                    return null;
+                }
+                break;
+            case "count":
+                return (long) documents.size();
+            case "findAll":
+                if (a.length == 0) {
+                    return new ArrayList<>(documents.values());
+                }
+                break;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == a[0];
+            case "toString":
+                return "InMemoryRepository" + documents.keySet();
+            default:
+                break;
+        }
+        if (method.isDefault()) {
+            return InvocationHandler.invokeDefault(proxy, method, args);
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private T save(T entity) {
+        if (idOf.apply(entity) == null) {
+            assignId.accept(entity, UUID.randomUUID().toString());
+        }
+        documents.put(idOf.apply(entity), entity);
+        return entity;
+    }
+}
@@ -0,0 +1,102 @@
+package com.futurize.triply.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageSummary;
+import com.futurize.triply.model.WishlistSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding cost of a wishlist page and an image listing page in each format the
+ * API negotiates, with and without gzip. The encoded size of each combination is
+ * printed once per trial, so the output shows payload savings next to CPU cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper mapper;
+    private Map<String, Object> wishlistPage;
+    private Map<String, Object> imagePage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+        mapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+
+        List<WishlistSummary> wishlists = new ArrayList<>();
+        List<ImageSummary> images = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            wishlists.add(new WishlistSummary("Trip " + i, i % 40));
+            ImageData image = new ImageData();
+            image.setId("4f1c2a9e-" + String.format("%04d", i) + "-4b8e-9d51-0c6f3a7e21b4");
+            image.setFileName("IMG_" + (2000 + i) + ".jpg");
+            image.setFileType("image/jpeg");
+            image.setSize(2_000_000L + i * 1_733L);
+            image.setUploadedAt(Instant.parse("2024-06-01T10:00:00Z").plusSeconds(i * 97L));
+            image.setPlaceName("Place " + (i % 10));
+            images.add(ImageSummary.from(image));
+        }
+        wishlistPage = Map.of("items", wishlists, "nextCursor", "Trip 99");
+        imagePage = Map.of("items", images, "nextCursor", images.get(images.size() - 1).getId());
+
+        System.out.printf("%n%s%s: wishlist page %d bytes, image page %d bytes%n",
+                format, gzip ? "+gzip" : "", wishlistPage().length, imagePage().length);
+    }
+
+    @Benchmark
+    public byte[] wishlistPage() throws IOException {
+        return encode(wishlistPage);
+    }
+
+    @Benchmark
+    public byte[] imagePage() throws IOException {
+        return encode(imagePage);
+    }
+
+    private byte[] encode(Object page) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            mapper.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,96 @@
+package com.futurize.triply.benchmark;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.ImageService;
+import com.futurize.triply.service.ImageVariantService;
+import com.futurize.triply.service.PerceptualHashIndex;
+import com.futurize.triply.storage.FileSystemBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A stampede on one image id: 32 threads read the same metadata from a
+ * repository that takes 1 ms per lookup, with single-flight coalescing on and
+ * off. The number of backend lookups per read is printed after each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class RequestCoalescingBenchmark {
+
+    private static final long BACKEND_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"false", "true"})
+    private boolean coalescing;
+
+    private final AtomicLong backendCalls = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private ImageService imageService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryRepository<ImageData> images = BenchmarkFixtures.images()
+                .query("findById", (docs, a) -> {
+                    backendCalls.incrementAndGet();
+                    LockSupport.parkNanos(BACKEND_LATENCY_NANOS);
+                    return Optional.ofNullable(docs.get((String) a[0]));
+                });
+        ImageData image = new ImageData();
+        image.setId("trending");
+        image.setPlaceName("Trending Place");
+        images.documents().put(image.getId(), image);
+
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(
+                Files.createTempDirectory("triply-bench-blobs").toString());
+        ImageRepository imageRepository = images.as(ImageRepository.class);
+        imageService = new ImageService(imageRepository,
+                BenchmarkFixtures.imageDigests().as(ImageDigestRepository.class),
+                new PerceptualHashIndex(), blobStore,
+                new ImageVariantService(blobStore, imageRepository, new SimpleMeterRegistry(), 1, 100,
+                        Duration.ofSeconds(5)),
+                BenchmarkFixtures.placeSuggestionIndex(imageRepository,
+                        BenchmarkFixtures.wishlists().as(WishlistRepository.class),
+                        BenchmarkFixtures.wishlistItems().as(WishlistItemRepository.class)),
+                BenchmarkFixtures.requestCoalescer(coalescing), new SimpleMeterRegistry(), 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%ncoalescing=%s: %.3f backend lookups per read%n",
+                coalescing, (double) backendCalls.get() / Math.max(1, reads.get()));
+    }
+
+    @Benchmark
+    public Optional<ImageData> getTrendingImage() {
+        reads.incrementAndGet();
+        return imageService.getImage("trending");
+    }
+}
@@ -0,0 +1,85 @@
+package com.futurize.triply.benchmark;
+
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.WishlistService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wishlist read and mutation flows, with the near cache enabled or disabled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WishlistServiceBenchmark {
+
+    private static final int WISHLISTS = 1000;
+    private static final int PLACES_PER_WISHLIST = 50;
+
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private WishlistService wishlistService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepository<Wishlist> wishlists = BenchmarkFixtures.wishlists();
+        wishlistService = BenchmarkFixtures.wishlistService(wishlists.as(WishlistRepository.class),
+                BenchmarkFixtures.wishlistItems().as(WishlistItemRepository.class), cacheSize);
+        for (int i = 0; i < WISHLISTS; i++) {
+            wishlistService.createWishlist("wishlist-" + i);
+            for (int p = 0; p < PLACES_PER_WISHLIST; p++) {
+                wishlistService.addPlaceToWishlist("wishlist-" + i, "Place " + p);
+            }
+        }
+    }
+
+    @Benchmark
+    public Set<String> getWishlistPlaces() {
+        return wishlistService.getWishlistPlaces(nextName());
+    }
+
+    @Benchmark
+    public List<String> getAllWishlistNames() {
+        return wishlistService.getAllWishlistNames();
+    }
+
+    @Benchmark
+    public List<WishlistItem> listItemsFirstPage() {
+        return wishlistService.listItems(nextName(), null, 20, null);
+    }
+
+    @Benchmark
+    public WishlistItem addThenRemovePlace() {
+        String name = nextName();
+        WishlistItem item = wishlistService.addPlaceToWishlist(name, "Benchmark Place");
+        wishlistService.removePlaceFromWishlist(name, "Benchmark Place");
+        return item;
+    }
+
+    private String nextName() {
+        next = (next + 1) % WISHLISTS;
+        return "wishlist-" + next;
+    }
+}
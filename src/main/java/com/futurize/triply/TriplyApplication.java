@@ -1,13 +1,22 @@
 package com.futurize.triply;
 
+import com.futurize.triply.config.TriplyRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(TriplyRuntimeHints.class)
 public class TriplyApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(TriplyApplication.class, args);
+		SpringApplication application = new SpringApplication(TriplyApplication.class);
+		// Records startup steps for StartupTimelineReport and /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(10_000));
+		application.run(args);
 	}
 
 }
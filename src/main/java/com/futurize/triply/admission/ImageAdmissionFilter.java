@@ -0,0 +1,146 @@
+package com.futurize.triply.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.futurize.triply.config.WebConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the image endpoints that accept file bodies. It runs
+ * before the multipart body is read and applies three checks in order:
+ * <ul>
+ *   <li>a per-client token bucket, answering {@code 429} when it is empty;</li>
+ *   <li>a global budget of request bytes in flight, sized from {@code Content-Length};</li>
+ *   <li>a bounded wait queue for that budget, answering {@code 503} when it is
+ *       full or the wait times out.</li>
+ * </ul>
+ * Both rejections carry {@code Retry-After}, so overload turns into client back-off
+ * instead of heap exhaustion. The filter runs after the CORS filter so that
+ * browsers can read rejections. Clients are told apart by their address as
+ * resolved from {@code X-Forwarded-For} by {@code server.forward-headers-strategy},
+ * so clients behind a trusted proxy get their own bucket.
+ */
+@Component
+@Order(WebConfig.CORS_FILTER_ORDER + 1)
+@ConditionalOnProperty(name = "triply.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class ImageAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> GUARDED_PATHS =
+            Set.of("/api/images/upload", "/api/images/upload/bulk", "/api/images/check");
+
+    private final InFlightByteBudget budget;
+    private final Cache<String, TokenBucket> buckets;
+    private final double permitsPerSecond;
+    private final double burst;
+    private final long unknownLengthBytes;
+    private final Duration queueTimeout;
+    private final long retryAfterSeconds;
+    private final Map<String, Counter> rejections;
+
+    @Autowired
+    public ImageAdmissionFilter(MeterRegistry meterRegistry,
+                                @Value("${triply.admission.max-in-flight-bytes:64MB}") DataSize maxInFlightBytes,
+                                @Value("${triply.admission.max-queued:50}") int maxQueued,
+                                @Value("${triply.admission.queue-timeout:2s}") Duration queueTimeout,
+                                @Value("${triply.admission.retry-after:5s}") Duration retryAfter,
+                                @Value("${triply.admission.rate.permits-per-second:5}") double permitsPerSecond,
+                                @Value("${triply.admission.rate.burst:20}") double burst,
+                                @Value("${spring.servlet.multipart.max-file-size:10MB}") DataSize unknownLength) {
+        this.budget = new InFlightByteBudget(maxInFlightBytes.toBytes(), maxQueued);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.unknownLengthBytes = unknownLength.toBytes();
+        this.queueTimeout = queueTimeout;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        Gauge.builder("triply.admission.queue.depth", budget, InFlightByteBudget::queued)
+                .description("Image requests waiting for the in-flight byte budget")
+                .register(meterRegistry);
+        Gauge.builder("triply.admission.inflight", budget, InFlightByteBudget::inFlight)
+                .description("Request bytes admitted and not yet finished")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejections = Map.of(
+                "rate_limited", rejectionCounter(meterRegistry, "rate_limited"),
+                "queue_full", rejectionCounter(meterRegistry, "queue_full"),
+                "timed_out", rejectionCounter(meterRegistry, "timed_out"));
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("triply.admission.rejected")
+                .description("Image requests turned away by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !GUARDED_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The forwarded client address when the request came through a trusted proxy
+        long waitNanos = buckets.get(request.getRemoteAddr(), key -> new TokenBucket(permitsPerSecond, burst))
+                .tryAcquire();
+        if (waitNanos > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "rate_limited",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+            return;
+        }
+
+        long bytes = request.getContentLengthLong() >= 0 ? request.getContentLengthLong() : unknownLengthBytes;
+        InFlightByteBudget.Outcome outcome;
+        try {
+            outcome = budget.acquire(bytes, queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = InFlightByteBudget.Outcome.TIMED_OUT;
+        }
+        if (outcome != InFlightByteBudget.Outcome.ADMITTED) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE,
+                    outcome == InFlightByteBudget.Outcome.QUEUE_FULL ? "queue_full" : "timed_out", retryAfterSeconds);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            budget.release(bytes);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String reason, long retryAfter)
+            throws IOException {
+        rejections.get(reason).increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + reason + "\"}");
+    }
+}
@@ -0,0 +1,91 @@
+package com.futurize.triply.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the total size of request bodies being processed at once. Requests that
+ * do not fit wait in a bounded queue for at most a timeout and are admitted in
+ * arrival order, so small requests cannot starve a large one; a request larger
+ * than the whole budget is admitted alone once everything else has finished.
+ */
+class InFlightByteBudget {
+
+    enum Outcome { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    private final long capacity;
+    private final int maxQueued;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> waiters = new ArrayDeque<>();
+    private long inFlight;
+
+    InFlightByteBudget(long capacity, int maxQueued) {
+        this.capacity = capacity;
+        this.maxQueued = maxQueued;
+    }
+
+    Outcome acquire(long bytes, long timeout, TimeUnit unit) throws InterruptedException {
+        long permits = Math.min(bytes, capacity);
+        lock.lock();
+        try {
+            if (inFlight + permits <= capacity && waiters.isEmpty()) {
+                inFlight += permits;
+                return Outcome.ADMITTED;
+            }
+            if (waiters.size() >= maxQueued) {
+                return Outcome.QUEUE_FULL;
+            }
+            Object waiter = new Object();
+            waiters.addLast(waiter);
+            try {
+                long remaining = unit.toNanos(timeout);
+                while (waiters.peekFirst() != waiter || inFlight + permits > capacity) {
+                    if (remaining <= 0) {
+                        return Outcome.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight += permits;
+                return Outcome.ADMITTED;
+            } finally {
+                waiters.remove(waiter);
+                // The next waiter may now be at the head, and may fit
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long bytes) {
+        lock.lock();
+        try {
+            inFlight -= Math.min(bytes, capacity);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
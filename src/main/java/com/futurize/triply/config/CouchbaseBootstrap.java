@@ -0,0 +1,51 @@
+package com.futurize.triply.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Waits for the Couchbase bucket in the background instead of on the startup
+ * path. The SDK connects lazily, so the context can finish refreshing while the
+ * cluster is still bootstrapping; {@link StartupReadiness} keeps the readiness
+ * probe down until {@link #ready()} completes. Failed attempts are retried until
+ * the bucket becomes reachable.
+ */
+@Component
+@Profile("!embedded")
+public class CouchbaseBootstrap {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CouchbaseBootstrap.class);
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final Duration attemptTimeout;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<Void> ready;
+
+    @Autowired
+    public CouchbaseBootstrap(CouchbaseTemplate couchbaseTemplate,
+                              @Value("${triply.startup.couchbase-timeout:30s}") Duration attemptTimeout) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.attemptTimeout = attemptTimeout;
+        this.ready = waitForBucket().thenRun(() -> log.info("Couchbase bucket ready after {} ms",
+                (System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    private CompletableFuture<Void> waitForBucket() {
+        return couchbaseTemplate.getCouchbaseClientFactory().getBucket().async()
+                .waitUntilReady(attemptTimeout)
+                .exceptionallyCompose(e -> {
+                    log.warn("Couchbase bucket not ready after {}, still waiting: {}", attemptTimeout, e.toString());
+                    return waitForBucket();
+                });
+    }
+}
@@ -3,9 +3,11 @@ package com.futurize.triply.config;
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.Collection;
 import com.couchbase.client.java.env.ClusterEnvironment;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.couchbase.SimpleCouchbaseClientFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.couchbase.config.AbstractCouchbaseConfiguration;
 import org.springframework.data.couchbase.core.CouchbaseTemplate;
 import org.springframework.data.couchbase.core.convert.MappingCouchbaseConverter;
@@ -14,6 +16,7 @@ import org.springframework.data.couchbase.repository.config.EnableCouchbaseRepos
 import java.time.Duration;
 
 @Configuration
+@Profile("!embedded")
 @EnableCouchbaseRepositories(basePackages = "com.futurize.triply.repository")
 public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
     
@@ -24,6 +27,16 @@ public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
     private static final String PASSWORD = "password123";
     private static final int CONNECTION_TIMEOUT = 10000; // 10 seconds
 
+    // Overridable so tests can point at a throwaway cluster
+    @Value("${spring.couchbase.connection-string:" + CONNECTION_STRING + "}")
+    private String connectionString;
+
+    @Value("${spring.couchbase.username:" + USERNAME + "}")
+    private String userName;
+
+    @Value("${spring.couchbase.password:" + PASSWORD + "}")
+    private String password;
+
     @Override
     protected void configureEnvironment(ClusterEnvironment.Builder builder) {
         builder
@@ -35,17 +48,17 @@ public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
 
     @Override
     public String getConnectionString() {
-        return CONNECTION_STRING;
+        return connectionString;
     }
 
     @Override
     public String getUserName() {
-        return USERNAME;
+        return userName;
     }
 
     @Override
     public String getPassword() {
-        return PASSWORD;
+        return password;
     }
 
     @Override
@@ -68,8 +81,8 @@ public class CouchbaseConfig extends AbstractCouchbaseConfiguration {
     }
 
     @Bean
-    public Collection couchbaseCollection() {
-        return couchbaseTemplate(null, null).getCouchbaseClientFactory()
+    public Collection couchbaseCollection(CouchbaseTemplate couchbaseTemplate) {
+        return couchbaseTemplate.getCouchbaseClientFactory()
             .getBucket()
             .defaultCollection();
     }
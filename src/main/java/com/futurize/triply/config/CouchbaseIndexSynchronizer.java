@@ -0,0 +1,99 @@
+package com.futurize.triply.config;
+
+import com.couchbase.client.java.manager.query.CollectionQueryIndexManager;
+import com.couchbase.client.java.manager.query.QueryIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Brings the bucket's indexes in line with {@link CouchbaseIndexes} before any
+ * other startup task queries it: missing indexes are created deferred and built
+ * together, and managed indexes no longer declared (older versions, removed
+ * definitions) are dropped once the current ones are online. Indexes not named
+ * with the {@code triply_} prefix are left alone. Running it again is a no-op.
+ * With {@code triply.couchbase.indexes.verify=true} it then fails startup if
+ * {@link QueryPlanVerifier} finds a repository query that needs a primary scan.
+ */
+@Component
+@Profile("!embedded")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "triply.couchbase.indexes.apply", havingValue = "true", matchIfMissing = true)
+public class CouchbaseIndexSynchronizer implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CouchbaseIndexSynchronizer.class);
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final QueryPlanVerifier queryPlanVerifier;
+    private final Duration buildTimeout;
+    private final boolean verify;
+
+    @Autowired
+    public CouchbaseIndexSynchronizer(CouchbaseTemplate couchbaseTemplate,
+                                      QueryPlanVerifier queryPlanVerifier,
+                                      @Value("${triply.couchbase.indexes.build-timeout:5m}") Duration buildTimeout,
+                                      @Value("${triply.couchbase.indexes.verify:true}") boolean verify) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.queryPlanVerifier = queryPlanVerifier;
+        this.buildTimeout = buildTimeout;
+        this.verify = verify;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        apply();
+        if (verify) {
+            List<String> violations = queryPlanVerifier.verify();
+            if (!violations.isEmpty()) {
+                throw new IllegalStateException("Repository queries not served by a secondary index:\n  "
+                        + String.join("\n  ", violations));
+            }
+        }
+    }
+
+    public void apply() {
+        long start = System.currentTimeMillis();
+        String bucket = couchbaseTemplate.getCouchbaseClientFactory().getBucket().name();
+        String typeKey = couchbaseTemplate.getConverter().getTypeKey();
+        CollectionQueryIndexManager indexes = couchbaseTemplate.getCouchbaseClientFactory()
+                .getBucket().defaultCollection().queryIndexes();
+
+        Set<String> existing = indexes.getAllIndexes().stream().map(QueryIndex::name).collect(Collectors.toSet());
+        List<String> declared = CouchbaseIndexes.ALL.stream().map(IndexDefinition::getIndexName).toList();
+        int created = 0;
+        for (IndexDefinition definition : CouchbaseIndexes.ALL) {
+            if (!existing.contains(definition.getIndexName())) {
+                log.info("Creating index {}", definition.getIndexName());
+                couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                        .query(definition.createStatement(bucket, typeKey));
+                created++;
+            }
+        }
+        // Also picks up indexes left deferred by an interrupted earlier run
+        indexes.buildDeferredIndexes();
+        indexes.watchIndexes(declared, buildTimeout);
+
+        int dropped = 0;
+        for (String name : existing) {
+            if (name.startsWith(IndexDefinition.NAME_PREFIX) && !declared.contains(name)) {
+                log.info("Dropping superseded index {}", name);
+                indexes.dropIndex(name);
+                dropped++;
+            }
+        }
+        log.info("Indexes up to date in {} ms: {} declared, {} created, {} dropped",
+                System.currentTimeMillis() - start, declared.size(), created, dropped);
+    }
+}
@@ -0,0 +1,49 @@
+package com.futurize.triply.config;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+
+import java.util.List;
+
+/**
+ * Every secondary index the repositories rely on. Applied at startup by
+ * {@link CouchbaseIndexSynchronizer}; {@link QueryPlanVerifier} checks that each
+ * repository query is served by one of them rather than a primary scan. To change
+ * an index, edit it here and bump its version.
+ */
+public final class CouchbaseIndexes {
+
+    public static final List<IndexDefinition> ALL = List.of(
+            // findAll paging and findSummariesAfter
+            IndexDefinition.of("image_id", 1, ImageData.class, "META().id"),
+            // findByPlaceName, countByPlaceName (covered) and findSummariesByPlaceNameAfter
+            IndexDefinition.of("image_place", 1, ImageData.class, "placeName", "META().id"),
+            // findPerceptualHashesAfter, only over images that have a hash
+            IndexDefinition.of("image_phash", 1, ImageData.class, "META().id")
+                    .where("`perceptualHash` IS VALUED"),
+
+            // findAll, used to build the in-memory itinerary and suggestion indexes
+            IndexDefinition.of("itinerary_id", 1, Itinerary.class, "META().id"),
+            // findByNormalizedPlaceName
+            IndexDefinition.of("itinerary_place", 2, Itinerary.class,
+                    "REGEXP_REPLACE(LOWER(TRIM(`placeName`)), \"\\\\s+\", \" \")"),
+            IndexDefinition.of("itinerary_modified", 1, Itinerary.class, "lastModified"),
+
+            // findAllWishlists
+            IndexDefinition.of("wishlist_id", 1, Wishlist.class, "META().id"),
+            // Covering for findNamesAfter and findIdByName
+            IndexDefinition.of("wishlist_name", 1, Wishlist.class, "name", "placeCount"),
+            // findInlinePlacesAfter, only over wishlists not yet migrated to items
+            IndexDefinition.of("wishlist_inline_places", 1, Wishlist.class, "META().id")
+                    .where("ARRAY_LENGTH(`placeNames`) > 0"),
+
+            // Item pages by (addedOn, id); covering for findPlaceNames and the counts
+            IndexDefinition.of("wishlist_item_added", 1, WishlistItem.class,
+                    "wishlistName", "addedOn", "visited", "placeName"),
+            // Covering for findPlaceNamesAfter
+            IndexDefinition.of("wishlist_item_id", 1, WishlistItem.class, "META().id", "placeName"));
+
+    private CouchbaseIndexes() {}
+}
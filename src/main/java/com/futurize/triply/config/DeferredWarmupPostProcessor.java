@@ -0,0 +1,76 @@
+package com.futurize.triply.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * With {@code triply.startup.deferred-warmup=true}, the application's own
+ * {@link ApplicationRunner}s (index warmers, migrations) no longer run on the
+ * startup path. Each is queued on a single background thread, in the usual
+ * runner order, to start once storage is ready, and {@link StartupReadiness}
+ * keeps the instance out of rotation until all of them have finished, and for
+ * good if one of them failed.
+ */
+@Component
+@ConditionalOnProperty(name = "triply.startup.deferred-warmup", havingValue = "true")
+public class DeferredWarmupPostProcessor implements BeanPostProcessor {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DeferredWarmupPostProcessor.class);
+
+    private static final String APPLICATION_PACKAGE = "com.futurize.triply";
+
+    private final ObjectProvider<StartupReadiness> startupReadiness;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "startup-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DeferredWarmupPostProcessor(ObjectProvider<StartupReadiness> startupReadiness) {
+        this.startupReadiness = startupReadiness;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof ApplicationRunner runner)
+                || !bean.getClass().getPackageName().startsWith(APPLICATION_PACKAGE)) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTarget(bean);
+        // Class proxy, since other beans inject the runners by their concrete type
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            if (!invocation.getMethod().getName().equals("run")
+                    || invocation.getArguments().length != 1
+                    || !(invocation.getArguments()[0] instanceof ApplicationArguments args)) {
+                return invocation.proceed();
+            }
+            StartupReadiness readiness = startupReadiness.getObject();
+            CompletableFuture<Void> warmup = readiness.storageReady().thenRunAsync(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    runner.run(args);
+                    log.info("Deferred startup task {} finished in {} ms", beanName, System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    log.error("Deferred startup task {} failed", beanName, e);
+                    // Fails the tracked future, which keeps readiness down
+                    throw new IllegalStateException("Deferred startup task " + beanName + " failed", e);
+                }
+            }, executor);
+            readiness.track(beanName, warmup);
+            return null;
+        });
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,222 @@
+package com.futurize.triply.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageDigest;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.ItineraryIndex;
+import com.futurize.triply.storage.embedded.EmbeddedRepository;
+import com.futurize.triply.storage.embedded.LogStructuredStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the Couchbase repositories with ones backed by an embedded
+ * {@link LogStructuredStore} when the {@code embedded} profile is active, for
+ * single-node deployments and offline testing.
+ */
+@Configuration
+@Profile("embedded")
+public class EmbeddedStorageConfig {
+
+    private static final Comparator<WishlistItem> ITEM_ORDER =
+            Comparator.comparing(WishlistItem::getAddedOn).thenComparing(WishlistItem::getId);
+
+    private final ObjectMapper documentMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Bean(destroyMethod = "close")
+    public LogStructuredStore logStructuredStore(
+            @Value("${triply.embedded.path:data/triply.log}") String path,
+            @Value("${triply.embedded.sync-writes:false}") boolean syncWrites) throws IOException {
+        return new LogStructuredStore(Path.of(path), syncWrites);
+    }
+
+    @Bean
+    public ImageRepository imageRepository(LogStructuredStore store) {
+        return new EmbeddedRepository<>(store, documentMapper, ImageData.class)
+                .method("findSummariesAfter", (repo, a) -> repo.streamAfter((String) a[0])
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .method("findSummariesByPlaceNameAfter", (repo, a) -> repo.streamAfter((String) a[1])
+                        .filter(image -> Objects.equals(image.getPlaceName(), a[0]))
+                        .limit((int) a[2])
+                        .collect(Collectors.toList()))
+                .method("findPerceptualHashesAfter", (repo, a) -> repo.streamAfter((String) a[0])
+                        .filter(image -> image.getPerceptualHash() != null)
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .as(ImageRepository.class);
+    }
+
+    @Bean
+    public ImageDigestRepository imageDigestRepository(LogStructuredStore store) {
+        return new EmbeddedRepository<>(store, documentMapper, ImageDigest.class)
+                .as(ImageDigestRepository.class);
+    }
+
+    @Bean
+    public ItineraryRepository itineraryRepository(LogStructuredStore store) {
+        return new EmbeddedRepository<>(store, documentMapper, Itinerary.class)
+                .method("findByNormalizedPlaceName", (repo, a) -> repo.streamAll()
+                        .filter(itinerary -> ItineraryIndex.normalize(itinerary.getPlaceName()).equals(a[0]))
+                        .findFirst())
+                .method("findModifiedSince", (repo, a) -> repo.streamAll()
+                        .filter(itinerary -> itinerary.getLastModified() != null
+                                && itinerary.getLastModified().isAfter((Instant) a[0]))
+                        .collect(Collectors.toList()))
+                .as(ItineraryRepository.class);
+    }
+
+    @Bean
+    public WishlistRepository wishlistRepository(LogStructuredStore store) {
+        // Read-modify-write methods share one lock; the store itself only orders single writes
+        Object mutationLock = new Object();
+        return new EmbeddedRepository<>(store, documentMapper, Wishlist.class)
+                .method("findAllWishlists", (repo, a) -> repo.streamAll().collect(Collectors.toList()))
+                .method("findNamesAfter", (repo, a) -> repo.streamAll()
+                        .filter(wishlist -> wishlist.getName().compareTo((String) a[0]) > 0)
+                        .sorted(Comparator.comparing(Wishlist::getName))
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .method("findInlinePlacesAfter", (repo, a) -> repo.streamAfter((String) a[0])
+                        .filter(wishlist -> !wishlist.getPlaceNames().isEmpty())
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .method("findIdByName", (repo, a) -> repo.streamAll()
+                        .filter(wishlist -> Objects.equals(wishlist.getName(), a[0]))
+                        .map(Wishlist::getId)
+                        .findFirst()
+                        .orElse(null))
+                .method("insert", (repo, a) -> {
+                    Wishlist wishlist = (Wishlist) a[0];
+                    synchronized (mutationLock) {
+                        if (repo.findById(wishlist.getId()).isPresent()) {
+                            throw new DuplicateKeyException("Wishlist " + wishlist.getId() + " already exists");
+                        }
+                        return repo.save(wishlist);
+                    }
+                })
+                .method("adjustPlaceCount", (repo, a) -> {
+                    synchronized (mutationLock) {
+                        return repo.findById((String) a[0]).map(wishlist -> {
+                            wishlist.setPlaceCount(wishlist.getPlaceCount() + (int) a[1]);
+                            repo.save(wishlist);
+                            return true;
+                        }).orElse(false);
+                    }
+                })
+                .method("removeInlinePlace", (repo, a) -> {
+                    synchronized (mutationLock) {
+                        return repo.findById((String) a[0]).map(wishlist -> {
+                            Set<String> places = new HashSet<>(wishlist.getPlaceNames());
+                            if (!places.remove((String) a[1])) {
+                                return false;
+                            }
+                            int placeCount = wishlist.getPlaceCount();
+                            wishlist.setPlaceNames(places);
+                            wishlist.setPlaceCount(placeCount - 1);
+                            repo.save(wishlist);
+                            return true;
+                        }).orElse(false);
+                    }
+                })
+                .method("clearInlinePlaces", (repo, a) -> {
+                    synchronized (mutationLock) {
+                        return repo.findById((String) a[0]).map(wishlist -> {
+                            wishlist.setPlaceNames(new HashSet<>());
+                            wishlist.setPlaceCount(((IntSupplier) a[1]).getAsInt());
+                            repo.save(wishlist);
+                            return true;
+                        }).orElse(false);
+                    }
+                })
+                .as(WishlistRepository.class);
+    }
+
+    @Bean
+    public WishlistItemRepository wishlistItemRepository(LogStructuredStore store) {
+        Object mutationLock = new Object();
+        return new EmbeddedRepository<>(store, documentMapper, WishlistItem.class)
+                .method("findPageAfter", (repo, a) -> itemsAfter(repo.streamAll(), a)
+                        .limit((int) a[3])
+                        .collect(Collectors.toList()))
+                .method("findPageByVisitedAfter", (repo, a) -> itemsAfter(repo.streamAll(), a)
+                        .filter(item -> item.isVisited() == (boolean) a[3])
+                        .limit((int) a[4])
+                        .collect(Collectors.toList()))
+                .method("findPlaceNames", (repo, a) -> repo.streamAll()
+                        .filter(item -> Objects.equals(item.getWishlistName(), a[0]))
+                        .sorted(ITEM_ORDER)
+                        .collect(Collectors.toList()))
+                .method("findPlaceNamesIn", (repo, a) -> repo.streamAll()
+                        .filter(item -> ((List<?>) a[0]).contains(item.getWishlistName()))
+                        .sorted(Comparator.comparing(WishlistItem::getWishlistName).thenComparing(ITEM_ORDER))
+                        .collect(Collectors.toList()))
+                .method("findPlaceNamesAfter", (repo, a) -> repo.streamAfter((String) a[0])
+                        .limit((int) a[1])
+                        .collect(Collectors.toList()))
+                .method("countByWishlistNameAndVisited", (repo, a) -> repo.streamAll()
+                        .filter(item -> Objects.equals(item.getWishlistName(), a[0])
+                                && item.isVisited() == (boolean) a[1])
+                        .count())
+                .method("insertIfAbsent", (repo, a) -> {
+                    WishlistItem item = (WishlistItem) a[0];
+                    synchronized (mutationLock) {
+                        if (repo.findById(item.getId()).isPresent()) {
+                            return false;
+                        }
+                        repo.save(item);
+                        return true;
+                    }
+                })
+                .method("removeIfPresent", (repo, a) -> repo.deleteById((String) a[0]))
+                .method("removeAllForWishlist", (repo, a) -> (int) repo.streamAll()
+                        .filter(item -> Objects.equals(item.getWishlistName(), a[0]))
+                        .map(WishlistItem::getId)
+                        .collect(Collectors.toList())
+                        .stream()
+                        .filter(repo::deleteById)
+                        .count())
+                .as(WishlistItemRepository.class);
+    }
+
+    // Items of wishlist a[0] after the (a[1] addedOn, a[2] id) cursor, in cursor order
+    private static Stream<WishlistItem> itemsAfter(Stream<WishlistItem> items, Object[] a) {
+        LocalDateTime afterAddedOn = (LocalDateTime) a[1];
+        String afterId = (String) a[2];
+        return items
+                .filter(item -> Objects.equals(item.getWishlistName(), a[0]))
+                .filter(item -> item.getAddedOn().isAfter(afterAddedOn)
+                        || (item.getAddedOn().equals(afterAddedOn) && item.getId().compareTo(afterId) > 0))
+                .sorted(ITEM_ORDER);
+    }
+}
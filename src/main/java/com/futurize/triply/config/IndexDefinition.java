@@ -0,0 +1,100 @@
+package com.futurize.triply.config;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.annotation.TypeAlias;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * One declared secondary index: a partial index over the documents of a single
+ * entity type, optionally narrowed further by {@code condition}. The version is
+ * part of the index name, so changing a definition means bumping its version;
+ * {@link CouchbaseIndexSynchronizer} then creates the new index and drops the old
+ * one once it is online.
+ */
+public final class IndexDefinition {
+
+    static final String NAME_PREFIX = "triply_";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String name;
+    private final int version;
+    private final Class<?> entityType;
+    private final List<String> keys;
+    private final String condition;
+
+    private IndexDefinition(String name, int version, Class<?> entityType, List<String> keys, String condition) {
+        this.name = name;
+        this.version = version;
+        this.entityType = entityType;
+        this.keys = keys;
+        this.condition = condition;
+    }
+
+    public static IndexDefinition of(String name, int version, Class<?> entityType, String... keys) {
+        return new IndexDefinition(name, version, entityType, List.of(keys), null);
+    }
+
+    /**
+     * Same definition, restricted to documents matching the N1QL {@code condition}.
+     */
+    public IndexDefinition where(String condition) {
+        return new IndexDefinition(name, version, entityType, keys, condition);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public String getIndexName() {
+        return NAME_PREFIX + name + "_v" + version;
+    }
+
+    /**
+     * {@code CREATE INDEX} statement for this definition, built deferred so several
+     * indexes can be built in one pass.
+     */
+    public String createStatement(String bucket, String typeKey) {
+        String where = typeFilter(entityType, typeKey) + (condition == null ? "" : " AND " + condition);
+        return "CREATE INDEX `" + getIndexName() + "` IF NOT EXISTS ON `" + bucket + "`("
+                + keys.stream().map(IndexDefinition::quote).collect(Collectors.joining(", "))
+                + ") WHERE " + where + " WITH {\"defer_build\": true}";
+    }
+
+    /**
+     * The predicate Spring Data adds for {@code #{#n1ql.filter}}, which every
+     * repository query on {@code entityType} carries and every index is partial on.
+     */
+    static String typeFilter(Class<?> entityType, String typeKey) {
+        TypeAlias alias = AnnotationUtils.findAnnotation(entityType, TypeAlias.class);
+        return "`" + typeKey + "` = \"" + (alias != null ? alias.value() : entityType.getName()) + "\"";
+    }
+
+    private static String quote(String key) {
+        return IDENTIFIER.matcher(key).matches() ? "`" + key + "`" : key;
+    }
+
+    @Override
+    public String toString() {
+        return getIndexName();
+    }
+}
@@ -0,0 +1,229 @@
+package com.futurize.triply.config;
+
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@code EXPLAIN} for every {@code @Query} and derived query method of the
+ * Couchbase repositories and reports those whose plan contains a primary scan,
+ * or that cannot be planned at all. Statements are rebuilt the way Spring Data
+ * generates them: {@code #{#n1ql.*}} placeholders are expanded, and derived
+ * queries are translated from their method names, with parameters left as
+ * {@code $n} placeholders.
+ */
+@Component
+@Profile("!embedded")
+public class QueryPlanVerifier {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(QueryPlanVerifier.class);
+
+    private static final Set<String> PRIMARY_SCANS = Set.of("PrimaryScan", "PrimaryScan3");
+    private static final Pattern PLACEHOLDER = Pattern.compile("#\\{#n1ql\\.(\\w+)}");
+
+    private final ListableBeanFactory beanFactory;
+    private final CouchbaseTemplate couchbaseTemplate;
+
+    @Autowired
+    public QueryPlanVerifier(ListableBeanFactory beanFactory, CouchbaseTemplate couchbaseTemplate) {
+        this.beanFactory = beanFactory;
+        this.couchbaseTemplate = couchbaseTemplate;
+    }
+
+    /**
+     * Returns one line per offending query method; empty if every query is served
+     * by a secondary index.
+     */
+    public List<String> verify() {
+        Repositories repositories = new Repositories(beanFactory);
+        List<String> violations = new ArrayList<>();
+        int checked = 0;
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String label = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                String problem;
+                try {
+                    problem = explain(statementFor(method, domainType));
+                } catch (RuntimeException e) {
+                    problem = e.toString();
+                }
+                if (problem != null) {
+                    violations.add(label + ": " + problem);
+                }
+                checked++;
+            }
+        }
+        log.info("Verified query plans of {} repository queries, {} not served by a secondary index",
+                checked, violations.size());
+        return violations;
+    }
+
+    /**
+     * Returns null if the plan of {@code statement} uses no primary scan,
+     * otherwise a description of the problem.
+     */
+    public String explain(String statement) {
+        List<JsonObject> plan = couchbaseTemplate.getCouchbaseClientFactory().getCluster()
+                .query("EXPLAIN " + statement)
+                .rowsAsObject();
+        return usesPrimaryScan(plan.isEmpty() ? null : plan.get(0)) ? "primary scan in " + statement : null;
+    }
+
+    String statementFor(Method method, Class<?> domainType) {
+        return statementFor(method, domainType, bucket(), couchbaseTemplate.getConverter().getTypeKey());
+    }
+
+    /**
+     * Rebuilds the statement Spring Data runs for {@code method}: the expanded
+     * {@code @Query} if it has one, otherwise the query derived from its name.
+     */
+    static String statementFor(Method method, Class<?> domainType, String bucket, String typeKey) {
+        String typeFilter = IndexDefinition.typeFilter(domainType, typeKey);
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        return query != null ? expand(query.value(), bucket, typeFilter) : derive(method, domainType, bucket, typeFilter);
+    }
+
+    /**
+     * Expands the {@code #{#n1ql.*}} placeholders of {@code statement} for
+     * {@code domainType} against the configured bucket.
+     */
+    public String expand(String statement, Class<?> domainType) {
+        return expand(statement, bucket(), typeFilter(domainType));
+    }
+
+    static String expand(String statement, String bucket, String typeFilter) {
+        Matcher placeholder = PLACEHOLDER.matcher(statement);
+        StringBuilder expanded = new StringBuilder();
+        while (placeholder.find()) {
+            String replacement = switch (placeholder.group(1)) {
+                case "bucket" -> bucket;
+                case "filter" -> typeFilter;
+                case "selectEntity" -> "SELECT META().id AS __id, META().cas AS __cas, " + bucket + ".* FROM " + bucket;
+                default -> throw new IllegalArgumentException("Unsupported placeholder " + placeholder.group());
+            };
+            placeholder.appendReplacement(expanded, Matcher.quoteReplacement(replacement));
+        }
+        placeholder.appendTail(expanded);
+        if (expanded.indexOf("#{") >= 0) {
+            throw new IllegalArgumentException("Unsupported SpEL expression in " + statement);
+        }
+        return expanded.toString();
+    }
+
+    private static String derive(Method method, Class<?> domainType, String bucket, String typeFilter) {
+        PartTree tree = new PartTree(method.getName(), domainType);
+        StringBuilder statement = new StringBuilder();
+        if (tree.isCountProjection()) {
+            statement.append("SELECT COUNT(*) AS __count FROM ");
+        } else if (tree.isExistsProjection()) {
+            statement.append("SELECT META().id AS __id FROM ");
+        } else if (tree.isDelete()) {
+            statement.append("DELETE FROM ");
+        } else {
+            statement.append("SELECT META().id AS __id, META().cas AS __cas, ").append(bucket).append(".* FROM ");
+        }
+        statement.append(bucket).append(" WHERE ").append(typeFilter);
+
+        List<String> alternatives = new ArrayList<>();
+        int position = 1;
+        for (PartTree.OrPart or : tree) {
+            List<String> conditions = new ArrayList<>();
+            for (Part part : or) {
+                conditions.add(predicate(part, position));
+                position += part.getNumberOfArguments();
+            }
+            alternatives.add("(" + String.join(" AND ", conditions) + ")");
+        }
+        if (!alternatives.isEmpty()) {
+            statement.append(" AND (").append(String.join(" OR ", alternatives)).append(")");
+        }
+
+        List<String> orderBy = new ArrayList<>();
+        for (Sort.Order order : tree.getSort()) {
+            orderBy.add(field(order.getProperty()) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!orderBy.isEmpty()) {
+            statement.append(" ORDER BY ").append(String.join(", ", orderBy));
+        }
+        if (tree.isExistsProjection()) {
+            statement.append(" LIMIT 1");
+        } else if (tree.isLimiting()) {
+            statement.append(" LIMIT ").append(tree.getMaxResults());
+        }
+        return statement.toString();
+    }
+
+    private static String predicate(Part part, int position) {
+        String field = field(part.getProperty().toDotPath());
+        String parameter = "$" + position;
+        return switch (part.getType()) {
+            case SIMPLE_PROPERTY -> field + " = " + parameter;
+            case NEGATING_SIMPLE_PROPERTY -> field + " != " + parameter;
+            case GREATER_THAN, AFTER -> field + " > " + parameter;
+            case GREATER_THAN_EQUAL -> field + " >= " + parameter;
+            case LESS_THAN, BEFORE -> field + " < " + parameter;
+            case LESS_THAN_EQUAL -> field + " <= " + parameter;
+            case BETWEEN -> field + " BETWEEN " + parameter + " AND $" + (position + 1);
+            case IN -> field + " IN " + parameter;
+            case NOT_IN -> field + " NOT IN " + parameter;
+            case LIKE, STARTING_WITH, ENDING_WITH, CONTAINING -> field + " LIKE " + parameter;
+            case IS_NULL -> field + " IS NULL";
+            case IS_NOT_NULL -> field + " IS NOT NULL";
+            case EXISTS -> field + " IS NOT MISSING";
+            case TRUE -> field + " = TRUE";
+            case FALSE -> field + " = FALSE";
+            default -> throw new IllegalArgumentException("Unsupported derived query keyword " + part.getType());
+        };
+    }
+
+    private static String field(String path) {
+        return "`" + path.replace(".", "`.`") + "`";
+    }
+
+    private String bucket() {
+        return "`" + couchbaseTemplate.getCouchbaseClientFactory().getBucket().name() + "`";
+    }
+
+    private String typeFilter(Class<?> domainType) {
+        return IndexDefinition.typeFilter(domainType, couchbaseTemplate.getConverter().getTypeKey());
+    }
+
+    static boolean usesPrimaryScan(Object node) {
+        if (node instanceof JsonObject object) {
+            if (PRIMARY_SCANS.contains(String.valueOf(object.get("#operator")))) {
+                return true;
+            }
+            for (String name : object.getNames()) {
+                if (usesPrimaryScan(object.get(name))) {
+                    return true;
+                }
+            }
+        } else if (node instanceof JsonArray array) {
+            for (Object element : array) {
+                if (usesPrimaryScan(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
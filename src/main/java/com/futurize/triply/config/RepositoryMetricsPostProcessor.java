@@ -0,0 +1,90 @@
+package com.futurize.triply.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Wraps every repository in {@code com.futurize.triply.repository} with a proxy
+ * that times each call and counts it as a key-value or query operation:
+ * <ul>
+ *   <li>{@code triply.repository.calls} timer tagged with repository, method,
+ *       operation and outcome, published with a percentile histogram</li>
+ *   <li>{@code triply.repository.operations} counter tagged with operation</li>
+ * </ul>
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String REPOSITORY_PACKAGE = "com.futurize.triply.repository";
+
+    // Methods served by the key-value service; everything else goes through N1QL
+    private static final Set<String> KV_METHODS = Set.of(
+            "findById", "existsById", "findAllById", "save", "saveAll",
+            "delete", "deleteById", "deleteAllById", "insert", "adjustPlaceCount",
+            "insertIfAbsent", "removeIfPresent");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> repositoryInterface = findRepositoryInterface(bean.getClass());
+        if (repositoryInterface == null) {
+            return bean;
+        }
+        String repository = repositoryInterface.getSimpleName();
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTarget(bean);
+        proxyFactory.addInterface(repositoryInterface);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String operation = KV_METHODS.contains(method.getName()) ? "kv" : "query";
+            MeterRegistry registry = meterRegistry.getObject();
+            Counter.builder("triply.repository.operations")
+                    .tag("operation", operation)
+                    .register(registry)
+                    .increment();
+            Timer.Sample sample = Timer.start(registry);
+            String outcome = "success";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                outcome = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("triply.repository.calls")
+                        .tag("repository", repository)
+                        .tag("method", method.getName())
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+
+    private static Class<?> findRepositoryInterface(Class<?> beanClass) {
+        for (Class<?> candidate : beanClass.getInterfaces()) {
+            if (candidate.getPackageName().equals(REPOSITORY_PACKAGE) && !candidate.getSimpleName().endsWith("Custom")) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.futurize.triply.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Health contributor in the readiness group: down until storage is reachable and
+ * every deferred warm-up task has finished, so traffic is only routed to an
+ * instance once it can serve from warm indexes. It stays down, with the errors as
+ * details, if storage could not be reached or a warm-up task failed.
+ */
+@Component
+public class StartupReadiness implements HealthIndicator {
+
+    private final CompletableFuture<Void> storageReady;
+    private final Map<String, CompletableFuture<?>> warmups = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StartupReadiness(ObjectProvider<CouchbaseBootstrap> couchbaseBootstrap) {
+        CouchbaseBootstrap bootstrap = couchbaseBootstrap.getIfAvailable();
+        this.storageReady = bootstrap != null ? bootstrap.ready() : CompletableFuture.completedFuture(null);
+    }
+
+    public CompletableFuture<Void> storageReady() {
+        return storageReady;
+    }
+
+    public void track(String name, CompletableFuture<?> warmup) {
+        warmups.put(name, warmup);
+    }
+
+    @Override
+    public Health health() {
+        if (!storageReady.isDone()) {
+            return Health.down().withDetail("storage", "connecting").build();
+        }
+        if (storageReady.isCompletedExceptionally()) {
+            return Health.down().withDetail("storage", "failed")
+                    .withDetail("error", failureOf(storageReady)).build();
+        }
+        Map<String, String> failed = new TreeMap<>();
+        warmups.forEach((name, warmup) -> {
+            if (warmup.isCompletedExceptionally()) {
+                failed.put(name, failureOf(warmup));
+            }
+        });
+        if (!failed.isEmpty()) {
+            return Health.down().withDetail("storage", "ready").withDetail("failed", failed).build();
+        }
+        List<String> pending = warmups.entrySet().stream()
+                .filter(entry -> !entry.getValue().isDone())
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        if (!pending.isEmpty()) {
+            return Health.down().withDetail("storage", "ready").withDetail("warmingUp", pending).build();
+        }
+        return Health.up().withDetail("storage", "ready").build();
+    }
+
+    private static String failureOf(CompletableFuture<?> future) {
+        if (future.isCancelled()) {
+            return "cancelled";
+        }
+        return NestedExceptionUtils.getMostSpecificCause(future.exceptionNow()).toString();
+    }
+}
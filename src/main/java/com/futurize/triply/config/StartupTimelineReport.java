@@ -0,0 +1,61 @@
+package com.futurize.triply.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Logs time from JVM start to ready and the slowest bean instantiations once the
+ * application is ready. Bean times include the beans they depend on. The full
+ * timeline is served at {@code /actuator/startup}.
+ */
+@Component
+public class StartupTimelineReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StartupTimelineReport.class);
+
+    private final int topBeans;
+
+    public StartupTimelineReport(@Value("${triply.startup.timeline.top-beans:20}") int topBeans) {
+        this.topBeans = topBeans;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (!(startup instanceof BufferingApplicationStartup buffering)) {
+            log.info("Ready {} ms after JVM start", uptime);
+            return;
+        }
+        StartupTimeline timeline = buffering.getBufferedTimeline();
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .filter(e -> "spring.beans.instantiate".equals(e.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(topBeans)
+                .toList();
+        StringBuilder report = new StringBuilder();
+        for (StartupTimeline.TimelineEvent e : slowest) {
+            report.append(String.format("%n  %6d ms  %s", e.getDuration().toMillis(), beanName(e.getStartupStep())));
+        }
+        log.info("Ready {} ms after JVM start; slowest bean instantiations:{}", uptime, report);
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
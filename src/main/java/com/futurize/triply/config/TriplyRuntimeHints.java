@@ -0,0 +1,56 @@
+package com.futurize.triply.config;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageDigest;
+import com.futurize.triply.model.ImageMatch;
+import com.futurize.triply.model.ImageSummary;
+import com.futurize.triply.model.ImageUploadResult;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.PlaceSuggestion;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistCounts;
+import com.futurize.triply.model.WishlistEvent;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.model.WishlistPlaceChange;
+import com.futurize.triply.model.WishlistPlaces;
+import com.futurize.triply.model.WishlistSummary;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Runtime hints for the AOT-processed build: reflective access to the
+ * {@code model} classes, which are mapped by Couchbase and serialized by Jackson,
+ * and JDK proxies for the repositories as wrapped by
+ * {@link RepositoryMetricsPostProcessor} and the embedded storage backend.
+ */
+public class TriplyRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> MODEL_TYPES = List.of(
+            ImageData.class, ImageDigest.class, ImageMatch.class, ImageSummary.class, ImageUploadResult.class,
+            Itinerary.class, PlaceSuggestion.class, Wishlist.class, WishlistCounts.class, WishlistEvent.class,
+            WishlistItem.class, WishlistPlaceChange.class, WishlistPlaces.class, WishlistSummary.class);
+
+    private static final List<Class<?>> REPOSITORY_TYPES = List.of(
+            ImageRepository.class, ImageDigestRepository.class, ItineraryRepository.class, WishlistRepository.class,
+            WishlistItemRepository.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : MODEL_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.values());
+        }
+        for (Class<?> repository : REPOSITORY_TYPES) {
+            hints.proxies().registerJdkProxy(repository);
+            hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(repository));
+        }
+    }
+}
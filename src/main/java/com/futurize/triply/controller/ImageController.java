@@ -1,14 +1,27 @@
 package com.futurize.triply.controller;
 
 import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageMatch;
+import com.futurize.triply.model.ImageSummary;
+import com.futurize.triply.model.ImageUploadResult;
+import com.futurize.triply.model.ImageVariant;
+import com.futurize.triply.service.ImageBulkUploadService;
 import com.futurize.triply.service.ImageService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.*;
@@ -16,16 +29,38 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/images")
 public class ImageController {
 
+    private static final CacheControl IMAGE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private static final int MAX_BULK_FILES = 500;
+
     private final ImageService imageService;
+    private final ImageBulkUploadService imageBulkUploadService;
+    private final PageResponseWriter pageResponseWriter;
+    private final DistributionSummary downloadSizes;
 
     @Autowired
-    public ImageController(ImageService imageService) {
+    public ImageController(ImageService imageService,
+                           ImageBulkUploadService imageBulkUploadService,
+                           PageResponseWriter pageResponseWriter,
+                           MeterRegistry meterRegistry) {
         this.imageService = imageService;
+        this.imageBulkUploadService = imageBulkUploadService;
+        this.pageResponseWriter = pageResponseWriter;
+        this.downloadSizes = DistributionSummary.builder("triply.images.payload")
+                .description("Size of image bodies")
+                .baseUnit("bytes")
+                .tag("direction", "download")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @PostMapping("/upload")
@@ -35,47 +70,134 @@ public class ImageController {
         try {
             ImageData savedImage = imageService.uploadImage(file, placeName);
             return new ResponseEntity<>(savedImage, HttpStatus.CREATED);
+        } catch (ConcurrencyFailureException e) {
+            // The same content is being deleted right now
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (IOException e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Uploads several images to one place in a single multipart request. Returns
+     * one status per file in request order: 201 if every file was stored, 207 if
+     * some of them failed.
+     */
+    @PostMapping("/upload/bulk")
+    public ResponseEntity<List<ImageUploadResult>> uploadImages(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("placeName") String placeName) {
+        if (files.isEmpty() || files.size() > MAX_BULK_FILES) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<ImageUploadResult> results = imageBulkUploadService.uploadImages(files, placeName);
+        boolean anyFailed = results.stream().anyMatch(result -> "error".equals(result.getStatus()));
+        return new ResponseEntity<>(results, anyFailed ? HttpStatus.MULTI_STATUS : HttpStatus.CREATED);
+    }
+
+    /**
+     * Image bytes never change once uploaded, so responses carry a strong ETag
+     * from the content digest and a long-lived immutable Cache-Control. Spring
+     * answers If-None-Match / If-Modified-Since with 304 and Range with 206 based
+     * on these headers and the {@link Resource} body. Pass {@code variant=thumb}
+     * or {@code variant=medium} to get a resized JPEG instead of the original.
+     * Download sizes are recorded for responses that carry a body.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<byte[]> getImage(@PathVariable String id) {
-        return imageService.getImage(id)
-                .map(image -> {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType(image.getFileType()));
-                    headers.setContentLength(image.getSize());
-                    return new ResponseEntity<>(image.getData(), headers, HttpStatus.OK);
+    public ResponseEntity<Resource> getImage(
+            @PathVariable String id,
+            @RequestParam(value = "variant", required = false) String variantKey,
+            WebRequest webRequest) {
+        Optional<ImageVariant> variant = Optional.ofNullable(variantKey).flatMap(ImageVariant::fromKey);
+        if (variantKey != null && variant.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Optional<ImageData> found;
+        try {
+            found = imageService.getImage(id);
+        } catch (QueryTimeoutException e) {
+            return new ResponseEntity<>(HttpStatus.GATEWAY_TIMEOUT);
+        }
+        return found
+                .flatMap(image -> {
+                    Optional<Resource> content = variant.isPresent()
+                            ? imageService.getImageVariant(image, variant.get())
+                            : imageService.getImageContent(image);
+                    return content.map(body -> {
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.setContentType(variant.isPresent()
+                                ? MediaType.IMAGE_JPEG
+                                : MediaType.parseMediaType(image.getFileType()));
+                        headers.setCacheControl(IMAGE_CACHE_CONTROL);
+                        if (image.getContentHash() != null) {
+                            String tag = variant.map(v -> image.getContentHash() + "-" + v.getKey())
+                                    .orElse(image.getContentHash());
+                            headers.setETag("\"" + tag + "\"");
+                        }
+                        if (image.getUploadedAt() != null) {
+                            headers.setLastModified(image.getUploadedAt());
+                        }
+                        if (webRequest.checkNotModified(headers.getETag(), headers.getLastModified())) {
+                            return new ResponseEntity<Resource>(headers, HttpStatus.NOT_MODIFIED);
+                        }
+                        recordDownload(body);
+                        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+                    });
                 })
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    // Size of the original or variant being sent, not of the stored original
+    private void recordDownload(Resource body) {
+        try {
+            downloadSizes.record(body.contentLength());
+        } catch (IOException e) {
+            // Length unknown until streamed; not worth failing the download over
+        }
+    }
+
+    /**
+     * Lists image metadata one page at a time. Pass the returned {@code nextCursor}
+     * as {@code cursor} to fetch the following page; it is null on the last page.
+     */
     @GetMapping
-    public ResponseEntity<List<ImageData>> getAllImages() {
-        List<ImageData> images = imageService.getAllImages();
-        return new ResponseEntity<>(images, HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getAllImages(
+            @RequestParam(value = "placeName", required = false) String placeName,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        int pageSize = Math.min(Math.max(1, limit), MAX_PAGE_SIZE);
+        List<ImageSummary> images = imageService.listImages(placeName, cursor, pageSize);
+        String nextCursor = images.size() == pageSize ? images.get(images.size() - 1).getId() : null;
+        return pageResponseWriter.page(accept, images, nextCursor);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteImage(@PathVariable String id) {
-        imageService.deleteImage(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        try {
+            imageService.deleteImage(id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IOException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
     }
     
     @PostMapping("/check")
-    public ResponseEntity<?> checkImage(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> checkImage(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "limit", defaultValue = "5") int limit) {
         try {
-            byte[] imageData = file.getBytes();
-            Optional<ImageData> existingImage = imageService.findSimilarImage(imageData);
+            List<ImageMatch> matches = imageService.findNearestImages(file, Math.max(1, limit));
             
-            if (existingImage.isPresent()) {
-                // Return the place name if a matching image is found
-                Map<String, String> response = new HashMap<>();
+            if (!matches.isEmpty()) {
+                // Return the place name of the closest match, plus the ranked candidates
+                ImageMatch best = matches.get(0);
+                Map<String, Object> response = new HashMap<>();
                 response.put("status", "found");
-                response.put("placeName", existingImage.get().getPlaceName());
-                response.put("imageId", existingImage.get().getId());
+                response.put("placeName", best.getPlaceName());
+                response.put("imageId", best.getImageId());
+                response.put("matches", matches);
                 return new ResponseEntity<>(response, HttpStatus.OK);
             } else {
                 Map<String, String> response = new HashMap<>();
@@ -2,6 +2,9 @@ package com.futurize.triply.controller;
 
 import com.futurize.triply.service.ItineraryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -11,7 +14,11 @@ public class ItineraryController {
     private ItineraryService itineraryService;
 
     @GetMapping("/api/itinerary")
-    public String getItinerary(@RequestParam String placeName) {
-        return itineraryService.getItinerary(placeName);
+    public ResponseEntity<String> getItinerary(@RequestParam String placeName) {
+        try {
+            return ResponseEntity.ok(itineraryService.getItinerary(placeName));
+        } catch (QueryTimeoutException e) {
+            return new ResponseEntity<>(HttpStatus.GATEWAY_TIMEOUT);
+        }
     }
 }
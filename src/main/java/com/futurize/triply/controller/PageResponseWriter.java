@@ -0,0 +1,96 @@
+package com.futurize.triply.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Streams a page of listing results as {@code {items: [...], nextCursor}} in the
+ * format the client asked for: JSON by default, or CBOR / Smile when the
+ * {@code Accept} header prefers them. Regular {@code @ResponseBody} endpoints get
+ * the same negotiation from Spring's Jackson message converters.
+ */
+@Component
+public class PageResponseWriter {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    @Autowired
+    public PageResponseWriter(ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        // Copies keep the application's modules and settings, only the wire format differs
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    public ResponseEntity<StreamingResponseBody> page(String accept, List<?> items, String nextCursor) {
+        MediaType format = negotiate(accept);
+        if (format == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        ObjectMapper mapper = mapperFor(format);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = mapper.createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeFieldName("items");
+                generator.writeStartArray();
+                for (Object item : items) {
+                    generator.writeObject(item);
+                }
+                generator.writeEndArray();
+                generator.writeStringField("nextCursor", nextCursor);
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(format).body(body);
+    }
+
+    private ObjectMapper mapperFor(MediaType format) {
+        if (MediaType.APPLICATION_CBOR.equals(format)) {
+            return cborMapper;
+        }
+        return APPLICATION_SMILE.equals(format) ? smileMapper : jsonMapper;
+    }
+
+    /**
+     * Returns the first supported type in preference order, or null if none is
+     * acceptable. A malformed header accepts nothing, as with Spring's own
+     * negotiation.
+     */
+    private static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // Stable sort, so equally weighted types keep the client's order
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            for (MediaType supported : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE)) {
+                if (type.includes(supported)) {
+                    return supported;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.futurize.triply.controller;
+
+import com.futurize.triply.model.PlaceSuggestion;
+import com.futurize.triply.service.PlaceSuggestionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/places")
+public class PlaceController {
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final PlaceSuggestionIndex placeSuggestionIndex;
+
+    @Autowired
+    public PlaceController(PlaceSuggestionIndex placeSuggestionIndex) {
+        this.placeSuggestionIndex = placeSuggestionIndex;
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PlaceSuggestion>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(placeSuggestionIndex.suggest(query, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+}
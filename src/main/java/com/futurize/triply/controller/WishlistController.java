@@ -1,11 +1,23 @@
 package com.futurize.triply.controller;
 
+import com.futurize.triply.exception.ResourceNotFoundException;
 import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistCounts;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.model.WishlistPlaceChange;
+import com.futurize.triply.model.WishlistPlaces;
+import com.futurize.triply.model.WishlistSummary;
+import com.futurize.triply.service.WishlistEventBroadcaster;
 import com.futurize.triply.service.WishlistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Collections;
 import java.util.List;
@@ -16,15 +28,36 @@ import java.util.Set;
 @RequestMapping("/api/wishlists")
 public class WishlistController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final WishlistService wishlistService;
+    private final WishlistEventBroadcaster eventBroadcaster;
+    private final PageResponseWriter pageResponseWriter;
 
     @Autowired
-    public WishlistController(WishlistService wishlistService) {
+    public WishlistController(WishlistService wishlistService,
+                              WishlistEventBroadcaster eventBroadcaster,
+                              PageResponseWriter pageResponseWriter) {
         this.wishlistService = wishlistService;
+        this.eventBroadcaster = eventBroadcaster;
+        this.pageResponseWriter = pageResponseWriter;
     }
 
+    /**
+     * Without paging parameters, returns every wishlist name. With {@code limit}
+     * or {@code cursor}, returns one page of names with place counts; pass the
+     * returned {@code nextCursor} as {@code cursor} for the following page.
+     */
     @GetMapping
-    public ResponseEntity<?> getAllWishlists() {
+    public ResponseEntity<?> getAllWishlists(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (cursor != null || limit != null) {
+            return listWishlists(cursor, limit == null ? 100 : limit, accept);
+        }
         try {
             return ResponseEntity.ok(wishlistService.getAllWishlistNames());
         } catch (Exception e) {
@@ -33,6 +66,13 @@ public class WishlistController {
         }
     }
 
+    private ResponseEntity<StreamingResponseBody> listWishlists(String cursor, int limit, String accept) {
+        int pageSize = Math.min(Math.max(1, limit), MAX_PAGE_SIZE);
+        List<WishlistSummary> wishlists = wishlistService.listWishlists(cursor, pageSize);
+        String nextCursor = wishlists.size() == pageSize ? wishlists.get(wishlists.size() - 1).getName() : null;
+        return pageResponseWriter.page(accept, wishlists, nextCursor);
+    }
+
     @PostMapping
     public ResponseEntity<Wishlist> createWishlist(@RequestBody Map<String, String> request) {
         String name = request.get("name");
@@ -53,13 +93,85 @@ public class WishlistController {
         try {
             Set<String> places = wishlistService.getWishlistPlaces(name);
             return ResponseEntity.ok(places);
+        } catch (QueryTimeoutException e) {
+            return new ResponseEntity<>(HttpStatus.GATEWAY_TIMEOUT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Server-sent events for changes to one wishlist: {@code place_added},
+     * {@code place_removed} and {@code wishlist_deleted}, which ends the stream.
+     * Slow clients are disconnected and should reconnect and re-fetch.
+     */
+    @GetMapping(path = "/{name}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@PathVariable String name) {
+        try {
+            wishlistService.getWishlist(name);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(eventBroadcaster.subscribe(name));
+    }
+
+    /**
+     * Returns one page of the wishlist's items, oldest first, optionally filtered by
+     * {@code visited}. Pass the returned {@code nextCursor} as {@code cursor} for
+     * the following page.
+     */
+    @GetMapping("/{name}/items")
+    public ResponseEntity<StreamingResponseBody> listItems(
+            @PathVariable String name,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "visited", required = false) Boolean visited,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        int pageSize = Math.min(Math.max(1, limit), MAX_PAGE_SIZE);
+        List<WishlistItem> items;
+        try {
+            items = wishlistService.listItems(name, cursor, pageSize, visited);
+        } catch (ResourceNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        String nextCursor = items.size() == pageSize ? wishlistService.cursorFor(items.get(items.size() - 1)) : null;
+        return pageResponseWriter.page(accept, items, nextCursor);
+    }
+
+    @GetMapping("/{name}/counts")
+    public ResponseEntity<WishlistCounts> getCounts(@PathVariable String name) {
+        try {
+            return ResponseEntity.ok(wishlistService.getCounts(name));
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Updates one item's {@code visited} flag and/or {@code notes}; fields missing
+     * from the request body are left as they are.
+     */
+    @PatchMapping("/{name}/items/{placeName}")
+    public ResponseEntity<WishlistItem> updateItem(
+            @PathVariable String name,
+            @PathVariable String placeName,
+            @RequestBody Map<String, Object> request) {
+        Object visited = request.get("visited");
+        Object notes = request.get("notes");
+        if ((visited != null && !(visited instanceof Boolean)) || (notes != null && !(notes instanceof String))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return ResponseEntity.ok(wishlistService.updateItem(name, placeName, (Boolean) visited, (String) notes));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
     @PostMapping("/{name}/places")
-    public ResponseEntity<Wishlist> addToWishlist(
+    public ResponseEntity<WishlistItem> addToWishlist(
             @PathVariable String name,
             @RequestBody Map<String, String> request) {
         
@@ -69,8 +181,8 @@ public class WishlistController {
         }
         
         try {
-            Wishlist wishlist = wishlistService.addPlaceToWishlist(name, placeName);
-            return ResponseEntity.ok(wishlist);
+            WishlistItem item = wishlistService.addPlaceToWishlist(name, placeName);
+            return ResponseEntity.ok(item);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -98,4 +210,23 @@ public class WishlistController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    @PostMapping("/batch/get")
+    public ResponseEntity<List<WishlistPlaces>> getWishlists(@RequestBody Map<String, List<String>> request) {
+        List<String> names = request.get("names");
+        if (names == null || names.isEmpty() || names.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(wishlistService.getWishlists(names));
+    }
+
+    @PostMapping("/batch/places")
+    public ResponseEntity<List<WishlistPlaceChange>> updateWishlistPlaces(
+            @RequestBody Map<String, List<WishlistPlaceChange>> request) {
+        List<WishlistPlaceChange> changes = request.get("changes");
+        if (changes == null || changes.isEmpty() || changes.size() > MAX_BATCH_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(wishlistService.applyPlaceChanges(changes));
+    }
 }
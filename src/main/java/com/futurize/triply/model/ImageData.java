@@ -16,8 +16,12 @@ public class ImageData {
     private String id;
     private String fileName;
     private String fileType;
+    private String blobKey;
+    // Inline bytes of images stored before the blob store; new uploads leave this null
     private byte[] data;
     private long size;
+    private String contentHash;
+    private Long perceptualHash;
     private Instant uploadedAt;
     private String placeName;
     
@@ -0,0 +1,67 @@
+package com.futurize.triply.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.couchbase.core.mapping.Document;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Lookup document keyed by the content digest of an image, so an exact-match
+ * check is a single key-value get instead of a scan over every {@link ImageData}.
+ * It also owns the shared content blob: {@code refCount} tracks how many images
+ * point at {@code blobKey}, and the blob is removed with the last of them. While
+ * that happens the digest stays behind with {@code deletingSince} set, so that a
+ * concurrent upload of the same content waits instead of reusing the blob.
+ */
+@Document
+@Data
+public class ImageDigest {
+
+    private static final String KEY_PREFIX = "image-digest::";
+
+    @Id
+    private String id;
+    private String sha256;
+    private long size;
+    private String blobKey;
+    private Set<String> imageIds = new LinkedHashSet<>();
+    private int refCount;
+    private Instant deletingSince;
+    @Version
+    private long version;
+
+    public ImageDigest() {}
+
+    public ImageDigest(String sha256, long size) {
+        this.id = keyFor(sha256, size);
+        this.sha256 = sha256;
+        this.size = size;
+        this.blobKey = blobKeyFor(sha256, size);
+    }
+
+    /** Returns false if {@code imageId} already held a reference. */
+    public boolean addReference(String imageId) {
+        boolean added = imageIds.add(imageId);
+        refCount = imageIds.size();
+        return added;
+    }
+
+    /** Returns false if {@code imageId} held no reference. */
+    public boolean removeReference(String imageId) {
+        boolean removed = imageIds.remove(imageId);
+        refCount = imageIds.size();
+        return removed;
+    }
+
+    public static String keyFor(String sha256, long size) {
+        return KEY_PREFIX + sha256 + "::" + size;
+    }
+
+    public static String blobKeyFor(String sha256, long size) {
+        return "content/" + sha256.substring(0, 2) + "/" + sha256 + "-" + size;
+    }
+}
@@ -0,0 +1,14 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageMatch {
+    private String imageId;
+    private String placeName;
+    private int distance;
+}
@@ -0,0 +1,27 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Metadata view of an {@link ImageData} without the image bytes, used for listings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageSummary {
+    private String id;
+    private String fileName;
+    private String fileType;
+    private long size;
+    private Instant uploadedAt;
+    private String placeName;
+
+    public static ImageSummary from(ImageData image) {
+        return new ImageSummary(image.getId(), image.getFileName(), image.getFileType(),
+                image.getSize(), image.getUploadedAt(), image.getPlaceName());
+    }
+}
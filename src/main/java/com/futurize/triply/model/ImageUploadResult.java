@@ -0,0 +1,20 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one file in a bulk upload: {@code created}, {@code duplicate} when
+ * the content was already stored, or {@code error} with a message.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageUploadResult {
+
+    private String fileName;
+    private String status;
+    private String imageId;
+    private String error;
+}
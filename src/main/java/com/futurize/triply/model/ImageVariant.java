@@ -0,0 +1,35 @@
+package com.futurize.triply.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Resized derivatives generated for each uploaded image. Derivatives are always
+ * JPEG and fit within {@link #getMaxDimension()} pixels on their longest side.
+ */
+public enum ImageVariant {
+    THUMB("thumb", 200),
+    MEDIUM("medium", 800);
+
+    private final String key;
+    private final int maxDimension;
+
+    ImageVariant(String key, int maxDimension) {
+        this.key = key;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public static Optional<ImageVariant> fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(variant -> variant.key.equalsIgnoreCase(key))
+                .findFirst();
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.couchbase.core.mapping.Document;
 import lombok.Data;
 
+import java.time.Instant;
+
 @Document
 @Data
 public class Itinerary {
@@ -11,4 +13,6 @@ public class Itinerary {
     private String id;
     private String placeName;
     private String description;
+    // Set by whatever writes itineraries; drives the incremental refresh of ItineraryIndex
+    private Instant lastModified;
 }
@@ -0,0 +1,13 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaceSuggestion {
+    private String placeName;
+    private int popularity;
+}
@@ -3,8 +3,6 @@ package com.futurize.triply.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
-import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
-import org.springframework.data.couchbase.core.mapping.id.GenerationStrategy;
 import org.springframework.data.couchbase.core.mapping.id.IdPrefix;
 import org.springframework.data.couchbase.core.mapping.id.IdSuffix;
 import org.springframework.data.couchbase.core.mapping.id.IdAttribute;
@@ -18,26 +16,45 @@ import java.util.Set;
 @Data
 @TypeAlias("com.futurize.triply.model.Wishlist")
 public class Wishlist {
+
+    private static final String ID_PREFIX = "wishlist::";
     
+    // Derived from the name (see idFor) so lookups by name are key-value gets
     @Id
-    @GeneratedValue(strategy = GenerationStrategy.UNIQUE, delimiter = "::")
     private String id;
     
     @Field
     private String name;
     
+    // Places are stored as WishlistItem documents; this is only read for wishlists
+    // not yet migrated, and filled in from the items when a wishlist is loaded
     @Field
     private Set<String> placeNames = new HashSet<>();
+
+    // Number of items, adjusted with each add and remove so listings can read it from the index
+    @Field
+    private int placeCount;
     
     public void addPlace(String placeName) {
         this.placeNames.add(placeName);
+        this.placeCount = placeNames.size();
     }
     
     public void removePlace(String placeName) {
         this.placeNames.remove(placeName);
+        this.placeCount = placeNames.size();
+    }
+
+    public void setPlaceNames(Set<String> placeNames) {
+        this.placeNames = placeNames;
+        this.placeCount = placeNames.size();
     }
     
     public Set<String> getPlaceNames() {
         return placeNames;
     }
+
+    public static String idFor(String name) {
+        return ID_PREFIX + name;
+    }
 }
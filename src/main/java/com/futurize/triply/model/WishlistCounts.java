@@ -0,0 +1,18 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Item counts of one wishlist, computed by the server.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistCounts {
+    private String name;
+    private long total;
+    private long visited;
+    private long unvisited;
+}
@@ -0,0 +1,24 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A change to one wishlist, pushed to subscribers of its event stream.
+ * {@code placeName} is null for {@link Type#WISHLIST_DELETED}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistEvent {
+
+    public enum Type { PLACE_ADDED, PLACE_REMOVED, WISHLIST_DELETED }
+
+    private Type type;
+    private String wishlistName;
+    private String placeName;
+    private Instant timestamp;
+}
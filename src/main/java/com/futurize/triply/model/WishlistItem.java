@@ -3,18 +3,23 @@ package com.futurize.triply.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.couchbase.core.mapping.Document;
 import org.springframework.data.couchbase.core.mapping.Field;
-import org.springframework.data.couchbase.core.mapping.id.GeneratedValue;
-import org.springframework.data.couchbase.core.mapping.id.GenerationStrategy;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
+/**
+ * One place on a wishlist, stored as its own document so adding, removing or
+ * updating a place touches only that document. Items are listed through the
+ * {@code wishlist_item_added} index (see {@code CouchbaseIndexes}).
+ */
 @Document
 @Data
 public class WishlistItem {
+
+    private static final String ID_PREFIX = "wishlist-item::";
     
+    // Derived from wishlist and place (see idFor), so each place is on a wishlist at most once
     @Id
-    @GeneratedValue(strategy = GenerationStrategy.UNIQUE, delimiter = "::")
     private String id;
     
     @Field
@@ -41,9 +46,18 @@ public class WishlistItem {
     public WishlistItem() {}
     
     public WishlistItem(String wishlistName, String placeId, String placeName, String notes) {
+        this.id = idFor(wishlistName, placeName);
         this.wishlistName = wishlistName;
         this.placeId = placeId;
         this.placeName = placeName;
         this.notes = notes;
     }
+
+    /**
+     * The wishlist name is length-prefixed so that no other (wishlist, place) pair
+     * maps to the same id, whatever characters either name contains.
+     */
+    public static String idFor(String wishlistName, String placeName) {
+        return ID_PREFIX + wishlistName.length() + ":" + wishlistName + "::" + placeName;
+    }
 }
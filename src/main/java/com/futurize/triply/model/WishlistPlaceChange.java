@@ -0,0 +1,22 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One add or remove in a batch update. The server fills in {@code status} on
+ * the copy it returns for each change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistPlaceChange {
+
+    public enum Action { ADD, REMOVE }
+
+    private String wishlistName;
+    private String placeName;
+    private Action action;
+    private String status;
+}
@@ -0,0 +1,20 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Per-wishlist result of a batch fetch. {@code places} is null when
+ * {@code status} is not {@code ok}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistPlaces {
+    private String name;
+    private String status;
+    private Set<String> places;
+}
@@ -0,0 +1,16 @@
+package com.futurize.triply.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Name and size of a {@link Wishlist} without its places, used for listings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistSummary {
+    private String name;
+    private int placeCount;
+}
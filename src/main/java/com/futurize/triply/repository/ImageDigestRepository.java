@@ -0,0 +1,9 @@
+package com.futurize.triply.repository;
+
+import com.futurize.triply.model.ImageDigest;
+import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageDigestRepository extends CouchbaseRepository<ImageDigest, String> {
+}
@@ -2,6 +2,7 @@ package com.futurize.triply.repository;
 
 import com.futurize.triply.model.ImageData;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +15,20 @@ public interface ImageRepository extends CouchbaseRepository<ImageData, String>
     
     // Count images for a specific place
     long countByPlaceName(String placeName);
+
+    // Metadata of images after the given id, without the image bytes (keyset pagination)
+    @Query("SELECT META().id AS __id, META().cas AS __cas, fileName, fileType, size, uploadedAt, placeName " +
+           "FROM #{#n1ql.bucket} WHERE #{#n1ql.filter} AND META().id > $1 ORDER BY META().id LIMIT $2")
+    List<ImageData> findSummariesAfter(String afterId, int limit);
+
+    // Same as findSummariesAfter, restricted to one place
+    @Query("SELECT META().id AS __id, META().cas AS __cas, fileName, fileType, size, uploadedAt, placeName " +
+           "FROM #{#n1ql.bucket} WHERE #{#n1ql.filter} AND placeName = $1 AND META().id > $2 " +
+           "ORDER BY META().id LIMIT $3")
+    List<ImageData> findSummariesByPlaceNameAfter(String placeName, String afterId, int limit);
+
+    // Perceptual hashes after the given id, without the image bytes, for warming the similarity index
+    @Query("SELECT META().id AS __id, META().cas AS __cas, placeName, perceptualHash FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND perceptualHash IS VALUED AND META().id > $1 ORDER BY META().id LIMIT $2")
+    List<ImageData> findPerceptualHashesAfter(String afterId, int limit);
 }
@@ -5,10 +5,17 @@ import org.springframework.data.couchbase.repository.CouchbaseRepository;
 import org.springframework.data.couchbase.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ItineraryRepository extends CouchbaseRepository<Itinerary, String> {
-    @Query("#{#n1ql.selectEntity} WHERE placeName = $1")
-    Optional<Itinerary> findByPlaceName(String placeName);
+    // Matches placeName the way ItineraryIndex normalizes it: trimmed, whitespace collapsed, lower case
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} " +
+           "AND REGEXP_REPLACE(LOWER(TRIM(placeName)), \"\\\\s+\", \" \") = $1")
+    Optional<Itinerary> findByNormalizedPlaceName(String normalizedPlaceName);
+
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND lastModified > $1")
+    List<Itinerary> findModifiedSince(Instant since);
 }
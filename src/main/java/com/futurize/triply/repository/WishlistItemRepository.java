@@ -0,0 +1,57 @@
+package com.futurize.triply.repository;
+
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.futurize.triply.model.WishlistItem;
+import org.springframework.data.couchbase.repository.CouchbaseRepository;
+import org.springframework.data.couchbase.repository.Query;
+import org.springframework.data.couchbase.repository.ScanConsistency;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Membership reads use {@code REQUEST_PLUS} so that they see every item written
+ * before the query, including one added or removed by the request just before.
+ */
+@Repository
+public interface WishlistItemRepository extends CouchbaseRepository<WishlistItem, String>, WishlistItemRepositoryCustom {
+
+    // Items of one wishlist after the (addedOn, id) cursor, oldest first (keyset pagination)
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND wishlistName = $1 " +
+           "AND (addedOn > $2 OR (addedOn = $2 AND META().id > $3)) " +
+           "ORDER BY addedOn, META().id LIMIT $4")
+    List<WishlistItem> findPageAfter(String wishlistName, LocalDateTime afterAddedOn, String afterId, int limit);
+
+    // Same as findPageAfter, restricted to visited or unvisited items
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter} AND wishlistName = $1 " +
+           "AND (addedOn > $2 OR (addedOn = $2 AND META().id > $3)) AND visited = $4 " +
+           "ORDER BY addedOn, META().id LIMIT $5")
+    List<WishlistItem> findPageByVisitedAfter(String wishlistName, LocalDateTime afterAddedOn, String afterId,
+                                              boolean visited, int limit);
+
+    // Place names of one wishlist in the order they were added, served from the index
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    @Query("SELECT META().id AS __id, 0 AS __cas, wishlistName, addedOn, placeName FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND wishlistName = $1 ORDER BY addedOn")
+    List<WishlistItem> findPlaceNames(String wishlistName);
+
+    // Same as findPlaceNames for several wishlists in one query
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    @Query("SELECT META().id AS __id, 0 AS __cas, wishlistName, addedOn, placeName FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND wishlistName IN $1 ORDER BY wishlistName, addedOn")
+    List<WishlistItem> findPlaceNamesIn(List<String> wishlistNames);
+
+    // Place names of all items after the given id, for building the suggestion index
+    @Query("SELECT META().id AS __id, 0 AS __cas, placeName FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND META().id > $1 ORDER BY META().id LIMIT $2")
+    List<WishlistItem> findPlaceNamesAfter(String afterId, int limit);
+
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    long countByWishlistName(String wishlistName);
+
+    @ScanConsistency(query = QueryScanConsistency.REQUEST_PLUS)
+    long countByWishlistNameAndVisited(String wishlistName, boolean visited);
+}
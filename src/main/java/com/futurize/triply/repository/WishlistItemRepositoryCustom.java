@@ -0,0 +1,19 @@
+package com.futurize.triply.repository;
+
+import com.futurize.triply.model.WishlistItem;
+
+/**
+ * Single-document wishlist item operations that report whether they changed
+ * anything, so the owning wishlist's place count can follow.
+ */
+public interface WishlistItemRepositoryCustom {
+
+    /** Inserts {@code item}. Returns false if an item with its id already exists. */
+    boolean insertIfAbsent(WishlistItem item);
+
+    /** Removes the item with {@code id}. Returns false if there was none. */
+    boolean removeIfPresent(String id);
+
+    /** Removes every item of {@code wishlistName} and returns how many there were. */
+    int removeAllForWishlist(String wishlistName);
+}
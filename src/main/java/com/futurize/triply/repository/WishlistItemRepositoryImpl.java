@@ -0,0 +1,53 @@
+package com.futurize.triply.repository;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.query.QueryScanConsistency;
+import com.futurize.triply.model.WishlistItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+import org.springframework.data.couchbase.core.query.Query;
+import org.springframework.data.couchbase.core.query.QueryCriteria;
+
+public class WishlistItemRepositoryImpl implements WishlistItemRepositoryCustom {
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final Collection collection;
+
+    @Autowired
+    public WishlistItemRepositoryImpl(CouchbaseTemplate couchbaseTemplate) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.collection = couchbaseTemplate.getCouchbaseClientFactory().getBucket().defaultCollection();
+    }
+
+    @Override
+    public boolean insertIfAbsent(WishlistItem item) {
+        try {
+            couchbaseTemplate.insertById(WishlistItem.class).one(item);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeIfPresent(String id) {
+        try {
+            collection.remove(id);
+            return true;
+        } catch (DocumentNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int removeAllForWishlist(String wishlistName) {
+        // REQUEST_PLUS so items inserted just before are removed too
+        return couchbaseTemplate.removeByQuery(WishlistItem.class)
+                .withConsistency(QueryScanConsistency.REQUEST_PLUS)
+                .matching(new Query(QueryCriteria.where("wishlistName").eq(wishlistName)))
+                .all()
+                .size();
+    }
+}
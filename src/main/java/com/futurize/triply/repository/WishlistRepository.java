@@ -1,30 +1,57 @@
 package com.futurize.triply.repository;
 
 import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistSummary;
 import org.springframework.data.couchbase.repository.CouchbaseRepository;
 import org.springframework.data.couchbase.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Repository
-public interface WishlistRepository extends CouchbaseRepository<Wishlist, String> {
+public interface WishlistRepository extends CouchbaseRepository<Wishlist, String>, WishlistRepositoryCustom {
     
     Optional<Wishlist> findByName(String name);
     
     boolean existsByName(String name);
     
-    @Query("SELECT META().id FROM #{#n1ql.bucket} WHERE name = $1")
+    @Query("SELECT META().id FROM #{#n1ql.bucket} WHERE #{#n1ql.filter} AND name = $1")
     String findIdByName(String name);
     
-    @Query("#{#n1ql.selectEntity} WHERE _class = 'com.futurize.triply.model.Wishlist'")
+    @Query("#{#n1ql.selectEntity} WHERE #{#n1ql.filter}")
     List<Wishlist> findAllWishlists();
     
+    // Names and place counts after the given name (keyset pagination). Served entirely from the
+    // covering (name, placeCount) index; __cas is a constant so the index stays covering.
+    @Query("SELECT META().id AS __id, 0 AS __cas, name, placeCount FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND name > $1 ORDER BY name LIMIT $2")
+    List<Wishlist> findNamesAfter(String afterName, int limit);
+
+    // Wishlists still holding places inline, not yet migrated to items, after the given id
+    @Query("SELECT META().id AS __id, 0 AS __cas, name, placeNames FROM #{#n1ql.bucket} " +
+           "WHERE #{#n1ql.filter} AND ARRAY_LENGTH(placeNames) > 0 AND META().id > $1 ORDER BY META().id LIMIT $2")
+    List<Wishlist> findInlinePlacesAfter(String afterId, int limit);
+
+    default List<WishlistSummary> findSummariesAfter(String afterName, int limit) {
+        List<WishlistSummary> summaries = new ArrayList<>();
+        for (Wishlist wishlist : findNamesAfter(afterName == null ? "" : afterName, limit)) {
+            summaries.add(new WishlistSummary(wishlist.getName(), wishlist.getPlaceCount()));
+        }
+        return summaries;
+    }
+
     default List<String> findAllWishlistNames() {
-        return findAllWishlists().stream()
-            .map(Wishlist::getName)
-            .collect(Collectors.toList());
+        int pageSize = 1000;
+        List<String> names = new ArrayList<>();
+        List<Wishlist> page = findNamesAfter("", pageSize);
+        while (true) {
+            page.forEach(wishlist -> names.add(wishlist.getName()));
+            if (page.size() < pageSize) {
+                return names;
+            }
+            page = findNamesAfter(page.get(page.size() - 1).getName(), pageSize);
+        }
     }
 }
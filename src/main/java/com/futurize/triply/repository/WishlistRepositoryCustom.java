@@ -0,0 +1,41 @@
+package com.futurize.triply.repository;
+
+import com.futurize.triply.model.Wishlist;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Wishlist operations that go straight to the key-value service instead of
+ * reading and rewriting the whole document.
+ */
+public interface WishlistRepositoryCustom {
+
+    /**
+     * Inserts a new wishlist, failing with
+     * {@link org.springframework.dao.DuplicateKeyException} if its id is taken.
+     */
+    Wishlist insert(Wishlist wishlist);
+
+    /**
+     * Adds {@code delta} to the wishlist's {@code placeCount} in a single
+     * sub-document mutation. Returns false if the wishlist does not exist.
+     */
+    boolean adjustPlaceCount(String id, int delta);
+
+    /**
+     * Removes {@code placeName} from the inline {@code placeNames} of a wishlist
+     * not yet migrated to items and decrements {@code placeCount}, conditional on
+     * the document not changing in between. Returns false if the wishlist does not
+     * exist or does not hold the place inline.
+     */
+    boolean removeInlinePlace(String id, String placeName);
+
+    /**
+     * Empties the wishlist's inline {@code placeNames} and sets {@code placeCount}
+     * to the value of {@code placeCount}, which is evaluated after the document is
+     * read. The write is conditional on the document not having changed since, and
+     * is retried with a fresh count if it has. Returns false if the wishlist does
+     * not exist.
+     */
+    boolean clearInlinePlaces(String id, IntSupplier placeCount);
+}
@@ -0,0 +1,102 @@
+package com.futurize.triply.repository;
+
+import com.couchbase.client.core.error.CasMismatchException;
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Collection;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.kv.ExistsResult;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.futurize.triply.model.Wishlist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.couchbase.core.CouchbaseTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+public class WishlistRepositoryImpl implements WishlistRepositoryCustom {
+
+    private static final String PLACE_COUNT = "placeCount";
+    private static final String PLACE_NAMES = "placeNames";
+
+    private final CouchbaseTemplate couchbaseTemplate;
+    private final Collection collection;
+
+    @Autowired
+    public WishlistRepositoryImpl(CouchbaseTemplate couchbaseTemplate) {
+        this.couchbaseTemplate = couchbaseTemplate;
+        this.collection = couchbaseTemplate.getCouchbaseClientFactory().getBucket().defaultCollection();
+    }
+
+    @Override
+    public Wishlist insert(Wishlist wishlist) {
+        return couchbaseTemplate.insertById(Wishlist.class).one(wishlist);
+    }
+
+    @Override
+    public boolean adjustPlaceCount(String id, int delta) {
+        try {
+            // Counter updates are applied atomically by the server, so no CAS is needed
+            collection.mutateIn(id, Collections.singletonList(
+                    MutateInSpec.increment(PLACE_COUNT, delta).createPath()));
+            return true;
+        } catch (DocumentNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeInlinePlace(String id, String placeName) {
+        while (true) {
+            LookupInResult current;
+            try {
+                current = collection.lookupIn(id, List.of(LookupInSpec.get(PLACE_NAMES)));
+            } catch (DocumentNotFoundException e) {
+                return false;
+            }
+            List<Object> places = new ArrayList<>();
+            if (current.exists(0)) {
+                places.addAll(current.contentAsArray(0).toList());
+            }
+            if (!places.remove(placeName)) {
+                return false;
+            }
+            try {
+                collection.mutateIn(id, List.of(
+                                MutateInSpec.upsert(PLACE_NAMES, JsonArray.from(places)),
+                                MutateInSpec.increment(PLACE_COUNT, -1).createPath()),
+                        MutateInOptions.mutateInOptions().cas(current.cas()));
+                return true;
+            } catch (CasMismatchException e) {
+                // Changed concurrently since it was read; look again
+            } catch (DocumentNotFoundException e) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean clearInlinePlaces(String id, IntSupplier placeCount) {
+        while (true) {
+            ExistsResult current = collection.exists(id);
+            if (!current.exists()) {
+                return false;
+            }
+            try {
+                collection.mutateIn(id, List.of(
+                                MutateInSpec.upsert(PLACE_NAMES, JsonArray.create()),
+                                MutateInSpec.upsert(PLACE_COUNT, placeCount.getAsInt())),
+                        MutateInOptions.mutateInOptions().cas(current.cas()));
+                return true;
+            } catch (CasMismatchException e) {
+                // Changed by a concurrent add or remove since it was read; count again
+            } catch (DocumentNotFoundException e) {
+                return false;
+            }
+        }
+    }
+}
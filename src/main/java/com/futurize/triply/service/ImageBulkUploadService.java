@@ -0,0 +1,183 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageUploadResult;
+import com.futurize.triply.repository.ImageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports many images from one request. Files are streamed and hashed in
+ * parallel on a bounded pool, their documents are written with a single
+ * {@code saveAll}, and the content references are then taken in parallel. If
+ * the batch fails, documents it already wrote are deleted again. When the
+ * pool's queue is full the request thread does the work itself, which keeps
+ * memory bounded under concurrent imports.
+ */
+@Service
+public class ImageBulkUploadService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageBulkUploadService.class);
+
+    private final ImageService imageService;
+    private final ImageRepository imageRepository;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ImageBulkUploadService(ImageService imageService,
+                                  ImageRepository imageRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${triply.images.bulk-upload.threads:4}") int threads,
+                                  @Value("${triply.images.bulk-upload.queue-capacity:64}") int queueCapacity) {
+        this.imageService = imageService;
+        this.imageRepository = imageRepository;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-bulk-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("triply.images.bulk-upload.queue.depth", executor, e -> e.getQueue().size())
+                .description("Bulk upload file jobs waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Uploads every file to {@code placeName} and returns one result per file, in
+     * request order. A failing file does not affect the others.
+     */
+    public List<ImageUploadResult> uploadImages(List<MultipartFile> files, String placeName) {
+        List<ImageUploadResult> results = new ArrayList<>(files.size());
+        List<String> stagingKeys = new ArrayList<>(files.size());
+        List<CompletableFuture<ImageData>> staged = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String stagingKey = ImageService.newStagingKey();
+            results.add(new ImageUploadResult(file.getOriginalFilename(), null, null, null));
+            stagingKeys.add(stagingKey);
+            staged.add(CompletableFuture.supplyAsync(() -> stage(file, placeName, stagingKey), executor));
+        }
+
+        try {
+            List<ImageData> toSave = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                ImageData image = joinQuietly(staged.get(i), results.get(i));
+                if (image != null) {
+                    toSave.add(image);
+                }
+            }
+            if (!toSave.isEmpty()) {
+                saveAll(toSave, results);
+            }
+
+            List<CompletableFuture<Void>> completions = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                ImageUploadResult result = results.get(i);
+                if (result.getStatus() != null) {
+                    continue;
+                }
+                ImageData image = staged.get(i).join();
+                String stagingKey = stagingKeys.get(i);
+                completions.add(CompletableFuture.runAsync(() -> complete(image, stagingKey, result), executor));
+            }
+            CompletableFuture.allOf(completions.toArray(new CompletableFuture[0])).join();
+        } finally {
+            for (String stagingKey : stagingKeys) {
+                try {
+                    imageService.discardStaged(stagingKey);
+                } catch (IOException e) {
+                    log.warn("Could not remove staging blob {}", stagingKey, e);
+                }
+            }
+        }
+        return results;
+    }
+
+    private ImageData stage(MultipartFile file, String placeName, String stagingKey) {
+        try {
+            ImageData image = imageService.stageUpload(file, placeName, stagingKey);
+            // Assigned here so results can be matched to documents after saveAll
+            image.setId(UUID.randomUUID().toString());
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void saveAll(List<ImageData> images, List<ImageUploadResult> results) {
+        try {
+            imageRepository.saveAll(images);
+        } catch (RuntimeException e) {
+            log.warn("Batch save of {} images failed", images.size(), e);
+            removePartiallySaved(images);
+            for (ImageUploadResult result : results) {
+                if (result.getStatus() == null) {
+                    result.setStatus("error");
+                    result.setError("Could not save image");
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the documents a failed {@code saveAll} did write, so that images
+     * reported as errors leave nothing behind.
+     */
+    private void removePartiallySaved(List<ImageData> images) {
+        List<String> ids = images.stream().map(ImageData::getId).toList();
+        try {
+            List<String> saved = new ArrayList<>();
+            imageRepository.findAllById(ids).forEach(image -> saved.add(image.getId()));
+            if (!saved.isEmpty()) {
+                imageRepository.deleteAllById(saved);
+                log.info("Removed {} images saved before the batch failed", saved.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not remove images saved before the batch failed: {}", ids, e);
+        }
+    }
+
+    private void complete(ImageData image, String stagingKey, ImageUploadResult result) {
+        try {
+            boolean duplicate = imageService.completeUpload(image, stagingKey);
+            result.setImageId(image.getId());
+            result.setStatus(duplicate ? "duplicate" : "created");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not store {}", result.getFileName(), e);
+            result.setStatus("error");
+            result.setError("Could not store image");
+        }
+    }
+
+    private static ImageData joinQuietly(CompletableFuture<ImageData> future, ImageUploadResult result) {
+        try {
+            return future.join();
+        } catch (RuntimeException e) {
+            log.warn("Could not read {}", result.getFileName(), e);
+            result.setStatus("error");
+            result.setError("Could not read file");
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
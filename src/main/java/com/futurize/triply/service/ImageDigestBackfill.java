@@ -0,0 +1,68 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.repository.ImageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * One-off job for images uploaded before the blob store existed: moves their
+ * inline bytes into the {@link com.futurize.triply.storage.BlobStore} and computes
+ * the content digest and perceptual hash on the way. Images whose blob was
+ * stored under a per-image key are re-pointed at the shared content-addressed
+ * blob, so duplicate copies are reclaimed. Enable with
+ * {@code triply.images.digest-backfill.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "triply.images.digest-backfill.enabled", havingValue = "true")
+@Order(2)
+public class ImageDigestBackfill implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageDigestBackfill.class);
+
+    private final ImageRepository imageRepository;
+    private final ImageService imageService;
+    private final int batchSize;
+
+    @Autowired
+    public ImageDigestBackfill(ImageRepository imageRepository,
+                               ImageService imageService,
+                               @Value("${triply.images.digest-backfill.batch-size:100}") int batchSize) {
+        this.imageRepository = imageRepository;
+        this.imageService = imageService;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        log.info("Backfilling image digests in batches of {}", batchSize);
+        int updated = 0;
+        int shared = 0;
+        Page<ImageData> page = imageRepository.findAll(PageRequest.of(0, batchSize, Sort.by("id")));
+        while (true) {
+            for (ImageData image : page) {
+                if (image.getData() != null) {
+                    imageService.migrateInlineContent(image);
+                    updated++;
+                } else if (imageService.migrateToSharedContent(image)) {
+                    shared++;
+                }
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = imageRepository.findAll(page.nextPageable());
+        }
+        log.info("Migrated {} images to the blob store and {} to shared content blobs", updated, shared);
+    }
+}
@@ -1,58 +1,477 @@
 package com.futurize.triply.service;
 
 import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageDigest;
+import com.futurize.triply.model.ImageMatch;
+import com.futurize.triply.model.ImageSummary;
+import com.futurize.triply.model.ImageVariant;
+import com.futurize.triply.repository.ImageDigestRepository;
 import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.storage.BlobStore;
+import com.futurize.triply.util.ContentDigests;
+import com.futurize.triply.util.PerceptualHashes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class ImageService {
 
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageService.class);
+
+    private static final int MAX_DIGEST_RETRIES = 10;
+    private static final long DIGEST_DELETE_POLL_MILLIS = 20;
+    // How long an upload waits for a blob delete to finish before giving up
+    private static final Duration DIGEST_DELETE_WAIT = Duration.ofSeconds(1);
+    // A deleting digest older than this belongs to a delete that never finished
+    private static final Duration DIGEST_DELETE_TIMEOUT = Duration.ofSeconds(30);
+
     private final ImageRepository imageRepository;
+    private final ImageDigestRepository imageDigestRepository;
+    private final PerceptualHashIndex perceptualHashIndex;
+    private final BlobStore blobStore;
+    private final ImageVariantService imageVariantService;
+    private final PlaceSuggestionIndex placeSuggestionIndex;
+    private final RequestCoalescer requestCoalescer;
+    private final DistributionSummary uploadSizes;
+    private final Timer uploadTimer;
+    private final Counter storedUploads;
+    private final Counter deduplicatedUploads;
+    private final Counter bytesSaved;
+    private final int maxMatchDistance;
 
     @Autowired
-    public ImageService(ImageRepository imageRepository) {
+    public ImageService(ImageRepository imageRepository,
+                        ImageDigestRepository imageDigestRepository,
+                        PerceptualHashIndex perceptualHashIndex,
+                        BlobStore blobStore,
+                        ImageVariantService imageVariantService,
+                        PlaceSuggestionIndex placeSuggestionIndex,
+                        RequestCoalescer requestCoalescer,
+                        MeterRegistry meterRegistry,
+                        @Value("${triply.images.similarity.max-distance:10}") int maxMatchDistance) {
         this.imageRepository = imageRepository;
+        this.imageDigestRepository = imageDigestRepository;
+        this.perceptualHashIndex = perceptualHashIndex;
+        this.blobStore = blobStore;
+        this.imageVariantService = imageVariantService;
+        this.placeSuggestionIndex = placeSuggestionIndex;
+        this.requestCoalescer = requestCoalescer;
+        this.uploadSizes = DistributionSummary.builder("triply.images.payload")
+                .description("Size of image bodies")
+                .baseUnit("bytes")
+                .tag("direction", "upload")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.uploadTimer = Timer.builder("triply.images.upload.store")
+                .description("Time to stream, hash and store an uploaded image")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.storedUploads = Counter.builder("triply.images.dedup.uploads")
+                .description("Image uploads by whether their content was new or already stored")
+                .tag("outcome", "stored")
+                .register(meterRegistry);
+        this.deduplicatedUploads = Counter.builder("triply.images.dedup.uploads")
+                .description("Image uploads by whether their content was new or already stored")
+                .tag("outcome", "deduplicated")
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder("triply.images.dedup.bytes.saved")
+                .description("Bytes not written because the uploaded content was already stored")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("triply.images.dedup.ratio", this, ImageService::dedupRatio)
+                .description("Share of uploads since startup that reused stored content")
+                .register(meterRegistry);
+        this.maxMatchDistance = maxMatchDistance;
     }
 
     public ImageData uploadImage(MultipartFile file, String placeName) throws IOException {
+        String stagingKey = newStagingKey();
+        try {
+            ImageData saved = imageRepository.save(stageUpload(file, placeName, stagingKey));
+            completeUpload(saved, stagingKey);
+            return saved;
+        } finally {
+            blobStore.delete(stagingKey);
+        }
+    }
+
+    /**
+     * First half of an upload: streams {@code file} into the staging blob and
+     * returns the unsaved document describing it.
+     */
+    ImageData stageUpload(MultipartFile file, String placeName, String stagingKey) throws IOException {
         ImageData imageData = new ImageData();
         imageData.setFileName(file.getOriginalFilename());
         imageData.setFileType(file.getContentType());
-        imageData.setData(file.getBytes());
-        imageData.setSize(file.getSize());
         imageData.setPlaceName(placeName);
-        
-        return imageRepository.save(imageData);
+
+        Timer.Sample sample = Timer.start();
+        try (InputStream in = file.getInputStream()) {
+            storeContent(imageData, stagingKey, in);
+        }
+        sample.stop(uploadTimer);
+        uploadSizes.record(imageData.getSize());
+        return imageData;
+    }
+
+    /**
+     * Second half of an upload, once the document is saved: takes a reference on
+     * the shared content and queues derivatives. The saved document is removed
+     * again if the content cannot be referenced. Returns true if the content was
+     * already stored.
+     */
+    boolean completeUpload(ImageData saved, String stagingKey) throws IOException {
+        boolean duplicate;
+        try {
+            duplicate = indexImage(saved, stagingKey);
+        } catch (IOException | RuntimeException e) {
+            imageRepository.delete(saved);
+            throw e;
+        }
+        placeSuggestionIndex.record(saved.getPlaceName(), 1);
+        getImageContent(saved).ifPresent(original -> imageVariantService.scheduleVariants(saved, original));
+        return duplicate;
+    }
+
+    /** Deletes a staging blob left by {@link #stageUpload}. */
+    void discardStaged(String stagingKey) throws IOException {
+        blobStore.delete(stagingKey);
     }
 
+    /**
+     * Looks up an image's metadata. Concurrent lookups of the same id share one
+     * backend read.
+     */
     public Optional<ImageData> getImage(String id) {
-        return imageRepository.findById(id);
+        return requestCoalescer.execute("image.findById", id, () -> imageRepository.findById(id));
+    }
+
+    /**
+     * Returns the stored bytes of {@code image} as a streamable resource. Images
+     * saved before the blob store existed still carry their bytes inline.
+     */
+    public Optional<Resource> getImageContent(ImageData image) {
+        return image.getBlobKey() != null
+                ? blobStore.read(image.getBlobKey())
+                : Optional.ofNullable(image.getData()).map(ByteArrayResource::new);
     }
 
-    public List<ImageData> getAllImages() {
-        return imageRepository.findAll();
+    /**
+     * Returns a resized derivative of {@code image}, generating it on first request
+     * for images uploaded before derivatives existed.
+     */
+    public Optional<Resource> getImageVariant(ImageData image, ImageVariant variant) {
+        return getImageContent(image)
+                .flatMap(original -> imageVariantService.getVariant(image, variant, original));
     }
 
-    public void deleteImage(String id) {
+    /**
+     * Returns one page of image metadata ordered by id, starting after
+     * {@code afterId} (or from the beginning when it is null).
+     */
+    public List<ImageSummary> listImages(String placeName, String afterId, int limit) {
+        String after = afterId == null ? "" : afterId;
+        List<ImageData> page = placeName == null
+                ? imageRepository.findSummariesAfter(after, limit)
+                : imageRepository.findSummariesByPlaceNameAfter(placeName, after, limit);
+        return page.stream().map(ImageSummary::from).collect(Collectors.toList());
+    }
+
+    /**
+     * Deletes the image document and its variants. Content shared with other
+     * images stays in the blob store until the last reference to it is dropped.
+     */
+    public void deleteImage(String id) throws IOException {
+        Optional<ImageData> image = imageRepository.findById(id);
+        Optional<ImageDigest> released = image.flatMap(this::unindexImage);
         imageRepository.deleteById(id);
+        requestCoalescer.forget("image.findById", id);
+        if (image.isPresent()) {
+            placeSuggestionIndex.record(image.get().getPlaceName(), -1);
+            imageVariantService.deleteVariants(image.get());
+            String blobKey = image.get().getBlobKey();
+            try {
+                if (blobKey != null && (released.isPresent() || !isContentAddressed(image.get()))) {
+                    blobStore.delete(blobKey);
+                }
+            } finally {
+                released.ifPresent(this::removeDigest);
+            }
+        }
     }
     
-    public Optional<ImageData> findSimilarImage(byte[] imageData) {
-        // Get all images (for small datasets)
-        List<ImageData> allImages = imageRepository.findAll();
-        
-        // Simple byte-by-byte comparison (for exact matches)
-        for (ImageData existingImage : allImages) {
-            if (java.util.Arrays.equals(existingImage.getData(), imageData)) {
-                return Optional.of(existingImage);
+    public Optional<ImageData> findSimilarImage(MultipartFile file) throws IOException {
+        MessageDigest sha256 = ContentDigests.newSha256();
+        long size;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        String key = ImageDigest.keyFor(ContentDigests.toHex(sha256.digest()), size);
+        return imageDigestRepository.findById(key)
+                .flatMap(digest -> digest.getImageIds().stream()
+                        .map(imageRepository::findById)
+                        .flatMap(Optional::stream)
+                        .findFirst());
+    }
+
+    /**
+     * Returns up to {@code limit} stored images that look like {@code file},
+     * closest first. A byte-identical copy is reported at distance 0, followed by
+     * perceptual matches within {@code triply.images.similarity.max-distance} bits.
+     */
+    public List<ImageMatch> findNearestImages(MultipartFile file, int limit) throws IOException {
+        List<ImageMatch> matches = new ArrayList<>();
+        findSimilarImage(file).ifPresent(exact ->
+                matches.add(new ImageMatch(exact.getId(), exact.getPlaceName(), 0)));
+
+        OptionalLong hash;
+        try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+            hash = PerceptualHashes.dHash(in);
+        }
+        if (hash.isPresent()) {
+            for (ImageMatch match : perceptualHashIndex.nearest(hash.getAsLong(), limit, maxMatchDistance)) {
+                if (matches.stream().noneMatch(m -> m.getImageId().equals(match.getImageId()))) {
+                    matches.add(match);
+                }
+            }
+        }
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * Moves the inline bytes of an image saved before the blob store existed into
+     * the blob store, computing its hashes on the way.
+     */
+    void migrateInlineContent(ImageData image) throws IOException {
+        String stagingKey = newStagingKey();
+        try {
+            try (InputStream in = new ByteArrayInputStream(image.getData())) {
+                storeContent(image, stagingKey, in);
+            }
+            image.setData(null);
+            imageRepository.save(image);
+            indexImage(image, stagingKey);
+        } finally {
+            blobStore.delete(stagingKey);
+        }
+    }
+
+    /**
+     * Re-points an image whose blob was stored under a per-image key at the shared
+     * content-addressed blob, dropping its private copy if the content is already
+     * stored. Returns false if the image needs no migration.
+     */
+    boolean migrateToSharedContent(ImageData image) throws IOException {
+        if (image.getBlobKey() == null || image.getContentHash() == null || isContentAddressed(image)) {
+            return false;
+        }
+        String privateKey = image.getBlobKey();
+        image.setBlobKey(ImageDigest.blobKeyFor(image.getContentHash(), image.getSize()));
+        imageRepository.save(image);
+        indexImage(image, privateKey);
+        blobStore.delete(privateKey);
+        return true;
+    }
+
+    /**
+     * Streams {@code content} into the staging blob, recording its size and hashes
+     * on {@code image} and pointing it at the content-addressed blob key. The
+     * staging blob is only promoted to that key by {@link #indexImage}.
+     */
+    private void storeContent(ImageData image, String stagingKey, InputStream content) throws IOException {
+        MessageDigest sha256 = ContentDigests.newSha256();
+        try (InputStream in = new DigestInputStream(content, sha256)) {
+            image.setSize(blobStore.write(stagingKey, in));
+        }
+        image.setContentHash(ContentDigests.toHex(sha256.digest()));
+        image.setBlobKey(ImageDigest.blobKeyFor(image.getContentHash(), image.getSize()));
+
+        try (InputStream in = new BufferedInputStream(blobStore.open(stagingKey))) {
+            PerceptualHashes.dHash(in).ifPresent(image::setPerceptualHash);
+        }
+    }
+
+    static String newStagingKey() {
+        String uuid = UUID.randomUUID().toString();
+        return "staging/" + uuid.substring(0, 2) + "/" + uuid;
+    }
+
+    private static boolean isContentAddressed(ImageData image) {
+        return image.getContentHash() != null
+                && ImageDigest.blobKeyFor(image.getContentHash(), image.getSize()).equals(image.getBlobKey());
+    }
+
+    private double dedupRatio() {
+        double total = storedUploads.count() + deduplicatedUploads.count();
+        return total == 0 ? 0 : deduplicatedUploads.count() / total;
+    }
+
+    /**
+     * Records the image under its content digest and perceptual hash, taking a
+     * reference on the shared content blob. The reference is taken before the
+     * blob is checked, and never on a digest whose blob is being deleted, so once
+     * the blob is seen to exist no concurrent delete can remove it; if it is
+     * missing, the staged copy at {@code stagingKey} becomes the shared one. If
+     * that fails, the reference and the perceptual-hash entry are released again.
+     * Returns true if the content was already stored.
+     */
+    boolean indexImage(ImageData image, String stagingKey) throws IOException {
+        updateDigest(image, digest -> digest.addReference(image.getId()));
+        try {
+            if (image.getPerceptualHash() != null) {
+                perceptualHashIndex.add(image.getPerceptualHash(), image.getId(), image.getPlaceName());
+            }
+            if (blobStore.exists(image.getBlobKey())) {
+                deduplicatedUploads.increment();
+                bytesSaved.increment(image.getSize());
+                return true;
+            }
+            blobStore.move(stagingKey, image.getBlobKey());
+        } catch (IOException | RuntimeException e) {
+            try {
+                releaseContent(image);
+            } catch (IOException | RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
             }
+            throw e;
+        }
+        storedUploads.increment();
+        return false;
+    }
+
+    /**
+     * Undoes {@link #indexImage} for an image whose content could not be stored,
+     * deleting whatever reached the shared blob key if no other image refers to it.
+     */
+    private void releaseContent(ImageData image) throws IOException {
+        Optional<ImageDigest> released = unindexImage(image);
+        try {
+            if (released.isPresent()) {
+                blobStore.delete(image.getBlobKey());
+            }
+        } finally {
+            released.ifPresent(this::removeDigest);
+        }
+    }
+
+    /**
+     * Drops the image from the digest and perceptual-hash indexes. If it held the
+     * last reference to its content blob, returns the digest, now marked as
+     * deleting; the caller deletes the blob and then {@link #removeDigest removes}
+     * the digest.
+     */
+    private Optional<ImageDigest> unindexImage(ImageData image) {
+        if (image.getPerceptualHash() != null) {
+            perceptualHashIndex.remove(image.getPerceptualHash(), image.getId());
+        }
+        if (image.getContentHash() == null) {
+            return Optional.empty();
+        }
+        ImageDigest digest = updateDigest(image, candidate -> candidate.removeReference(image.getId()));
+        return digest.getDeletingSince() != null ? Optional.of(digest) : Optional.empty();
+    }
+
+    /**
+     * Applies {@code change} to the digest document of {@code image} under
+     * optimistic locking, retrying on concurrent modification. A digest left with
+     * no references is not deleted but marked as deleting in the same write, so
+     * that no upload takes a reference on its blob while the blob is removed.
+     */
+    private ImageDigest updateDigest(ImageData image, Predicate<ImageDigest> change) {
+        String key = ImageDigest.keyFor(image.getContentHash(), image.getSize());
+        for (int attempt = 1; ; attempt++) {
+            Optional<ImageDigest> stored = findDigest(key);
+            ImageDigest digest = stored.orElseGet(() -> new ImageDigest(image.getContentHash(), image.getSize()));
+            if (digest.getBlobKey() == null) {
+                // Digests written before content addressing
+                digest.setBlobKey(ImageDigest.blobKeyFor(digest.getSha256(), digest.getSize()));
+            }
+            // Only set here on a digest whose delete was abandoned
+            digest.setDeletingSince(null);
+            if (!change.test(digest)) {
+                return digest;
+            }
+            try {
+                if (digest.getRefCount() > 0) {
+                    return imageDigestRepository.save(digest);
+                }
+                if (stored.isEmpty()) {
+                    return digest;
+                }
+                digest.setDeletingSince(Instant.now());
+                return imageDigestRepository.save(digest);
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt == MAX_DIGEST_RETRIES) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the digest under {@code key}, waiting briefly while its blob is being
+     * deleted. If the delete is still running after {@link #DIGEST_DELETE_WAIT},
+     * fails with a {@link ConcurrencyFailureException} the caller can retry on.
+     */
+    private Optional<ImageDigest> findDigest(String key) {
+        Instant waitUntil = Instant.now().plus(DIGEST_DELETE_WAIT);
+        while (true) {
+            Optional<ImageDigest> stored = imageDigestRepository.findById(key);
+            Instant deletingSince = stored.map(ImageDigest::getDeletingSince).orElse(null);
+            Instant now = Instant.now();
+            if (deletingSince == null || deletingSince.plus(DIGEST_DELETE_TIMEOUT).isBefore(now)) {
+                return stored;
+            }
+            if (now.isAfter(waitUntil)) {
+                throw new ConcurrencyFailureException("Content " + key + " is being deleted; retry the upload");
+            }
+            try {
+                Thread.sleep(DIGEST_DELETE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the blob of " + key + " to be deleted", e);
+            }
+        }
+    }
+
+    /**
+     * Removes a digest marked as deleting once its blob is gone. An upload that
+     * took over an abandoned delete in the meantime keeps the digest.
+     */
+    private void removeDigest(ImageDigest digest) {
+        try {
+            imageDigestRepository.delete(digest);
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Digest {} was taken over before its delete completed", digest.getId());
         }
-        return Optional.empty();
     }
 }
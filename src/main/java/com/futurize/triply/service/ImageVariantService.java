@@ -0,0 +1,200 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.ImageVariant;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.storage.BlobStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates resized {@link ImageVariant derivatives} of uploaded images on a
+ * bounded background executor and stores them in the {@link BlobStore} next to
+ * the original. Images uploaded before derivatives existed get theirs generated
+ * on first request. A variant finished after its image was deleted is removed
+ * again, so generation racing a delete leaves no orphaned blob.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final BlobStore blobStore;
+    private final ImageRepository imageRepository;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final long requestTimeoutMillis;
+
+    @Autowired
+    public ImageVariantService(BlobStore blobStore,
+                               ImageRepository imageRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${triply.images.variants.threads:2}") int threads,
+                               @Value("${triply.images.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${triply.images.variants.request-timeout:5s}") Duration requestTimeout) {
+        this.blobStore = blobStore;
+        this.imageRepository = imageRepository;
+        this.requestTimeoutMillis = requestTimeout.toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("triply.images.variants.queue.depth", executor, e -> e.getQueue().size())
+                .description("Image derivative jobs waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues generation of every variant of a freshly uploaded image. If the queue
+     * is full the variants are left to be generated on first request.
+     */
+    public void scheduleVariants(ImageData image, Resource original) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                generateAsync(image, variant, original);
+            } catch (RejectedExecutionException e) {
+                log.warn("Variant queue full, deferring {} of image {}", variant.getKey(), image.getId());
+            }
+        }
+    }
+
+    /**
+     * Returns the stored variant, generating it first if needed. Empty if the
+     * original could not be decoded or generation did not finish in time.
+     */
+    public Optional<Resource> getVariant(ImageData image, ImageVariant variant, Resource original) {
+        String key = variantKey(image, variant);
+        Optional<Resource> stored = blobStore.read(key);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        try {
+            boolean generated = generateAsync(image, variant, original)
+                    .get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+            return generated ? blobStore.read(key) : Optional.empty();
+        } catch (RejectedExecutionException | TimeoutException | ExecutionException e) {
+            log.warn("Could not generate {} of image {}: {}", variant.getKey(), image.getId(), e.toString());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    public void deleteVariants(ImageData image) throws IOException {
+        for (ImageVariant variant : ImageVariant.values()) {
+            blobStore.delete(variantKey(image, variant));
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Boolean> generateAsync(ImageData image, ImageVariant variant, Resource original) {
+        String key = variantKey(image, variant);
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(generate(image, key, variant, original));
+                } catch (Exception e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            throw e;
+        }
+        return created;
+    }
+
+    private boolean generate(ImageData image, String key, ImageVariant variant, Resource original)
+            throws IOException {
+        if (blobStore.exists(key)) {
+            return true;
+        }
+        BufferedImage source;
+        try (InputStream in = new BufferedInputStream(original.getInputStream())) {
+            source = ImageIO.read(in);
+        }
+        if (source == null) {
+            return false;
+        }
+
+        double scale = Math.min(1.0, (double) variant.getMaxDimension()
+                / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if (!ImageIO.write(resized, "jpg", encoded)) {
+            throw new UncheckedIOException(new IOException("No JPEG writer available"));
+        }
+        blobStore.write(key, new ByteArrayInputStream(encoded.toByteArray()));
+        // deleteImage removes the document before the variants; if it has already
+        // gone, that cleanup may have run before this write
+        if (!imageRepository.existsById(image.getId())) {
+            blobStore.delete(key);
+            return false;
+        }
+        return true;
+    }
+
+    private static String variantKey(ImageData image, ImageVariant variant) {
+        return "variants/" + image.getId() + "/" + variant.getKey() + ".jpg";
+    }
+}
@@ -0,0 +1,170 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of itineraries keyed by normalized place name. It is loaded in
+ * full at startup and periodically, and refreshed in between with the documents
+ * whose {@code lastModified} moved past the last one seen, less
+ * {@code triply.itineraries.refresh-overlap}: a write can become visible to the
+ * query after a later one, so the overlap re-reads recent changes and documents
+ * already applied at the same {@code lastModified} are skipped. A name that is not in
+ * the index is queried once and, if still missing, remembered as a miss for
+ * {@code triply.itineraries.negative-ttl}.
+ */
+@Component
+public class ItineraryIndex implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ItineraryIndex.class);
+
+    private final ItineraryRepository itineraryRepository;
+    private final PlaceSuggestionIndex placeSuggestionIndex;
+    private final RequestCoalescer requestCoalescer;
+    private final Cache<String, Boolean> misses;
+    private final Duration refreshOverlap;
+    // lastModified of documents applied within the overlap window, by id
+    private final Map<String, Instant> recentlyApplied = new ConcurrentHashMap<>();
+    private volatile Map<String, Itinerary> itineraries = new ConcurrentHashMap<>();
+    private volatile Instant watermark = Instant.EPOCH;
+    private volatile boolean loaded;
+
+    @Autowired
+    public ItineraryIndex(ItineraryRepository itineraryRepository,
+                          PlaceSuggestionIndex placeSuggestionIndex,
+                          RequestCoalescer requestCoalescer,
+                          @Value("${triply.itineraries.negative-ttl:5m}") Duration negativeTtl,
+                          @Value("${triply.itineraries.refresh-overlap:30s}") Duration refreshOverlap) {
+        this.itineraryRepository = itineraryRepository;
+        this.placeSuggestionIndex = placeSuggestionIndex;
+        this.requestCoalescer = requestCoalescer;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(negativeTtl)
+                .build();
+        this.refreshOverlap = refreshOverlap;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reload();
+    }
+
+    public Optional<Itinerary> find(String placeName) {
+        String key = normalize(placeName);
+        Itinerary itinerary = itineraries.get(key);
+        if (itinerary != null) {
+            return Optional.of(itinerary);
+        }
+        if (loaded && misses.getIfPresent(key) != null) {
+            return Optional.empty();
+        }
+
+        // Concurrent lookups of the same normalized name share one query
+        return requestCoalescer.execute("itinerary.findByPlaceName", key, () -> {
+            // By the normalized name, so the result holds for every name sharing the key
+            Optional<Itinerary> queried = itineraryRepository.findByNormalizedPlaceName(key);
+            if (queried.isPresent()) {
+                itineraries.put(key, queried.get());
+            } else {
+                misses.put(key, Boolean.TRUE);
+            }
+            return queried;
+        });
+    }
+
+    /**
+     * Replaces the index with every stored itinerary, which also drops deleted
+     * ones and picks up documents written without a {@code lastModified}.
+     */
+    @Scheduled(initialDelayString = "${triply.itineraries.reload-interval:1h}",
+               fixedDelayString = "${triply.itineraries.reload-interval:1h}")
+    public synchronized void reload() {
+        Map<String, Itinerary> fresh = new ConcurrentHashMap<>();
+        Instant latest = Instant.EPOCH;
+        recentlyApplied.clear();
+        for (Itinerary itinerary : itineraryRepository.findAll()) {
+            fresh.put(normalize(itinerary.getPlaceName()), itinerary);
+            latest = later(latest, itinerary.getLastModified());
+            if (itinerary.getLastModified() != null) {
+                recentlyApplied.put(itinerary.getId(), itinerary.getLastModified());
+            }
+        }
+        itineraries = fresh;
+        watermark = latest;
+        pruneRecentlyApplied();
+        misses.invalidateAll();
+        loaded = true;
+        log.info("Loaded {} itineraries", fresh.size());
+    }
+
+    @Scheduled(initialDelayString = "${triply.itineraries.refresh-interval:1m}",
+               fixedDelayString = "${triply.itineraries.refresh-interval:1m}")
+    public synchronized void refresh() {
+        if (!loaded) {
+            return;
+        }
+        List<Itinerary> changed = itineraryRepository.findModifiedSince(watermark.minus(refreshOverlap));
+        Instant latest = watermark;
+        int applied = 0;
+        for (Itinerary itinerary : changed) {
+            if (itinerary.getLastModified() != null
+                    && itinerary.getLastModified().equals(recentlyApplied.get(itinerary.getId()))) {
+                continue;
+            }
+            String key = normalize(itinerary.getPlaceName());
+            if (itineraries.put(key, itinerary) == null) {
+                placeSuggestionIndex.record(itinerary.getPlaceName(), 1);
+            }
+            misses.invalidate(key);
+            if (itinerary.getLastModified() != null) {
+                recentlyApplied.put(itinerary.getId(), itinerary.getLastModified());
+            }
+            latest = later(latest, itinerary.getLastModified());
+            applied++;
+        }
+        watermark = latest;
+        pruneRecentlyApplied();
+        if (applied > 0) {
+            log.info("Refreshed {} itineraries", applied);
+        }
+    }
+
+    // Only documents the next overlapping read can return again need remembering
+    private void pruneRecentlyApplied() {
+        Instant horizon = watermark.minus(refreshOverlap);
+        recentlyApplied.values().removeIf(lastModified -> !lastModified.isAfter(horizon));
+    }
+
+    public int size() {
+        return itineraries.size();
+    }
+
+    /**
+     * The key itineraries are indexed and looked up by: trimmed, runs of whitespace
+     * collapsed to one space, lower case.
+     */
+    public static String normalize(String placeName) {
+        return placeName == null ? "" : placeName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Instant later(Instant current, Instant candidate) {
+        return candidate != null && candidate.isAfter(current) ? candidate : current;
+    }
+}
@@ -0,0 +1,171 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageMatch;
+import com.futurize.triply.util.PerceptualHashes;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory BK-tree over 64-bit perceptual hashes. Nodes are arranged by Hamming
+ * distance to their parent, so a k-nearest search only descends into children whose
+ * edge distance is within the current search radius of the query.
+ */
+@Component
+public class PerceptualHashIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+
+    public void add(long hash, String imageId, String placeName) {
+        Entry entry = new Entry(imageId, placeName);
+        lock.writeLock().lock();
+        try {
+            size++;
+            if (root == null) {
+                root = new Node(hash, entry);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = PerceptualHashes.distance(hash, node.hash);
+                if (distance == 0) {
+                    if (node.entries.stream().anyMatch(e -> e.imageId.equals(imageId))) {
+                        size--;
+                    } else {
+                        node.entries.add(entry);
+                    }
+                    return;
+                }
+                Node child = node.child(distance);
+                if (child == null) {
+                    node.addChild(distance, new Node(hash, entry));
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long hash, String imageId) {
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            while (node != null) {
+                int distance = PerceptualHashes.distance(hash, node.hash);
+                if (distance == 0) {
+                    // Emptied nodes stay in place as routing points for their subtree
+                    if (node.entries.removeIf(entry -> entry.imageId.equals(imageId))) {
+                        size--;
+                    }
+                    return;
+                }
+                node = node.child(distance);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} images whose hash is within {@code maxDistance}
+     * bits of {@code hash}, closest first.
+     */
+    public List<ImageMatch> nearest(long hash, int limit, int maxDistance) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<ImageMatch> best = new PriorityQueue<>(
+                Comparator.comparingInt(ImageMatch::getDistance).reversed());
+        int radius = maxDistance;
+
+        lock.readLock().lock();
+        try {
+            Deque<Node> pending = new ArrayDeque<>();
+            if (root != null) {
+                pending.push(root);
+            }
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = PerceptualHashes.distance(hash, node.hash);
+                if (distance <= radius) {
+                    for (Entry entry : node.entries) {
+                        best.add(new ImageMatch(entry.imageId, entry.placeName, distance));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                    if (best.size() == limit) {
+                        radius = Math.min(radius, best.peek().getDistance());
+                    }
+                }
+                for (int i = 0; i < node.childCount; i++) {
+                    if (Math.abs(node.childDistances[i] - distance) <= radius) {
+                        pending.push(node.children[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ImageMatch> matches = new ArrayList<>(best);
+        matches.sort(Comparator.comparingInt(ImageMatch::getDistance));
+        return matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Entry(String imageId, String placeName) {}
+
+    private static final class Node {
+        private final long hash;
+        private final List<Entry> entries = new ArrayList<>(1);
+        private byte[] childDistances = new byte[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(long hash, Entry entry) {
+            this.hash = hash;
+            this.entries.add(entry);
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childDistances[childCount] = (byte) distance;
+            children[childCount] = child;
+            childCount++;
+        }
+    }
+}
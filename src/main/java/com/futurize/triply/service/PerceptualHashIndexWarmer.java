@@ -0,0 +1,52 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.repository.ImageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Loads the perceptual hashes of stored images into {@link PerceptualHashIndex}
+ * at startup, paging by document id so the image bytes are never fetched.
+ */
+@Component
+@Order(1)
+public class PerceptualHashIndexWarmer implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PerceptualHashIndexWarmer.class);
+
+    private final ImageRepository imageRepository;
+    private final PerceptualHashIndex perceptualHashIndex;
+    private final int batchSize;
+
+    @Autowired
+    public PerceptualHashIndexWarmer(ImageRepository imageRepository,
+                                     PerceptualHashIndex perceptualHashIndex,
+                                     @Value("${triply.images.similarity.warm-batch-size:1000}") int batchSize) {
+        this.imageRepository = imageRepository;
+        this.perceptualHashIndex = perceptualHashIndex;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        String lastId = "";
+        List<ImageData> batch;
+        do {
+            batch = imageRepository.findPerceptualHashesAfter(lastId, batchSize);
+            for (ImageData image : batch) {
+                perceptualHashIndex.add(image.getPerceptualHash(), image.getId(), image.getPlaceName());
+                lastId = image.getId();
+            }
+        } while (batch.size() == batchSize);
+        log.info("Loaded {} perceptual hashes in {} ms",
+                perceptualHashIndex.size(), System.currentTimeMillis() - start);
+    }
+}
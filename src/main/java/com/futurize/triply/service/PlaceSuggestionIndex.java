@@ -0,0 +1,270 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageData;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.PlaceSuggestion;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead index over every known place name, built from itineraries, image
+ * uploads and wishlists and updated as they are written. Names live in a trie
+ * whose nodes carry the highest popularity in their subtree, so the top-k
+ * completions of a prefix are found best-first without visiting the whole
+ * subtree. Queries that match no prefix exactly fall back to prefixes within a
+ * small edit distance.
+ */
+@Component
+public class PlaceSuggestionIndex implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PlaceSuggestionIndex.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final ItineraryRepository itineraryRepository;
+    private final ImageRepository imageRepository;
+    private final WishlistRepository wishlistRepository;
+    private final WishlistItemRepository wishlistItemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private int size;
+
+    @Autowired
+    public PlaceSuggestionIndex(ItineraryRepository itineraryRepository,
+                                ImageRepository imageRepository,
+                                WishlistRepository wishlistRepository,
+                                WishlistItemRepository wishlistItemRepository) {
+        this.itineraryRepository = itineraryRepository;
+        this.imageRepository = imageRepository;
+        this.wishlistRepository = wishlistRepository;
+        this.wishlistItemRepository = wishlistItemRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        for (Itinerary itinerary : itineraryRepository.findAll()) {
+            record(itinerary.getPlaceName(), 1);
+        }
+        String lastId = "";
+        List<ImageData> images;
+        do {
+            images = imageRepository.findSummariesAfter(lastId, PAGE_SIZE);
+            for (ImageData image : images) {
+                record(image.getPlaceName(), 1);
+                lastId = image.getId();
+            }
+        } while (images.size() == PAGE_SIZE);
+        lastId = "";
+        List<WishlistItem> items;
+        do {
+            items = wishlistItemRepository.findPlaceNamesAfter(lastId, PAGE_SIZE);
+            for (WishlistItem item : items) {
+                record(item.getPlaceName(), 1);
+                lastId = item.getId();
+            }
+        } while (items.size() == PAGE_SIZE);
+        // Places still stored inline on wishlists that have not been migrated to items
+        lastId = "";
+        List<Wishlist> wishlists;
+        do {
+            wishlists = wishlistRepository.findInlinePlacesAfter(lastId, PAGE_SIZE);
+            for (Wishlist wishlist : wishlists) {
+                wishlist.getPlaceNames().forEach(place -> record(place, 1));
+                lastId = wishlist.getId();
+            }
+        } while (wishlists.size() == PAGE_SIZE);
+        log.info("Indexed {} place names in {} ms", size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds {@code delta} to the popularity of {@code placeName}, inserting it if it
+     * is new. A name whose popularity drops to zero is no longer suggested.
+     */
+    public void record(String placeName, int delta) {
+        String key = normalize(placeName);
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            List<Node> path = new ArrayList<>(key.length() + 1);
+            path.add(node);
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = delta > 0 ? node.childOrCreate(key.charAt(i)) : node.child(key.charAt(i));
+                path.add(node);
+            }
+            if (node == null || (node.name == null && delta <= 0)) {
+                return;
+            }
+            if (node.name == null) {
+                node.name = placeName.trim();
+                size++;
+            }
+            node.popularity = Math.max(0, node.popularity + delta);
+            if (node.popularity == 0) {
+                // The nodes stay; without a name they are only passed through
+                node.name = null;
+                size--;
+                return;
+            }
+            // Subtree maxima only ever grow here; after a decrement they stay a valid upper bound
+            for (Node onPath : path) {
+                onPath.maxPopularity = Math.max(onPath.maxPopularity, node.popularity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<PlaceSuggestion> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node prefix = root;
+            for (int i = 0; i < key.length() && prefix != null; i++) {
+                prefix = prefix.child(key.charAt(i));
+            }
+            Map<Node, Integer> starts = new LinkedHashMap<>();
+            if (prefix != null) {
+                starts.put(prefix, 0);
+            } else {
+                int maxEdits = key.length() <= 3 ? 0 : key.length() <= 6 ? 1 : 2;
+                int[] firstRow = new int[key.length() + 1];
+                Arrays.setAll(firstRow, i -> i);
+                collectFuzzyPrefixes(root, key, firstRow, maxEdits, starts);
+            }
+            return topCompletions(starts, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the trie computing one Levenshtein row per node. A node whose row ends
+     * within {@code maxEdits} is a fuzzy match for the whole query, so its subtree
+     * is collected as completions instead of being searched further.
+     */
+    private void collectFuzzyPrefixes(Node node, String key, int[] previousRow, int maxEdits,
+                                      Map<Node, Integer> starts) {
+        for (int c = 0; c < node.childCount; c++) {
+            char label = node.labels[c];
+            int[] row = new int[key.length() + 1];
+            row[0] = previousRow[0] + 1;
+            int rowMin = row[0];
+            for (int i = 1; i <= key.length(); i++) {
+                int substitution = previousRow[i - 1] + (key.charAt(i - 1) == label ? 0 : 1);
+                row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+                rowMin = Math.min(rowMin, row[i]);
+            }
+            Node child = node.children[c];
+            if (row[key.length()] <= maxEdits) {
+                starts.merge(child, row[key.length()], Math::min);
+            } else if (rowMin <= maxEdits) {
+                collectFuzzyPrefixes(child, key, row, maxEdits, starts);
+            }
+        }
+    }
+
+    /**
+     * Best-first search over the start subtrees, ordered by fewest edits and then by
+     * the subtree's highest popularity, stopping once {@code limit} names are found.
+     */
+    private List<PlaceSuggestion> topCompletions(Map<Node, Integer> starts, int limit) {
+        record Candidate(Node node, int edits, boolean expanded) {}
+        Comparator<Candidate> order = Comparator.comparingInt(Candidate::edits)
+                .thenComparingInt(candidate -> -(candidate.expanded()
+                        ? candidate.node().popularity
+                        : candidate.node().maxPopularity))
+                .thenComparingInt(candidate -> candidate.expanded() ? 0 : 1);
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(order);
+        starts.forEach((node, edits) -> queue.add(new Candidate(node, edits, false)));
+
+        List<PlaceSuggestion> results = new ArrayList<>(limit);
+        while (!queue.isEmpty() && results.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node();
+            if (candidate.expanded()) {
+                results.add(new PlaceSuggestion(node.name, node.popularity));
+                continue;
+            }
+            if (node.name != null) {
+                queue.add(new Candidate(node, candidate.edits(), true));
+            }
+            for (int c = 0; c < node.childCount; c++) {
+                queue.add(new Candidate(node.children[c], candidate.edits(), false));
+            }
+        }
+        return results;
+    }
+
+    static String normalize(String placeName) {
+        return placeName == null ? "" : placeName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private String name;
+        private int popularity;
+        private int maxPopularity;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.futurize.triply.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing for hot backend reads. The first caller of an
+ * {@code (operation, key)} pair runs the read on its own thread; callers that
+ * arrive while it is in flight wait for the same result instead of issuing their
+ * own. A failure reaches every waiting caller as the same exception. Waiters give
+ * up after {@code triply.coalescing.timeout} with a {@link QueryTimeoutException},
+ * without affecting the call in flight, whose own duration is bounded by the
+ * backend's timeouts. Nothing is kept once the call completes, so this is not a
+ * cache: the next read after completion goes to the backend again.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final boolean enabled;
+
+    @Autowired
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${triply.coalescing.timeout:30s}") Duration timeout,
+                            @Value("${triply.coalescing.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.enabled = enabled;
+        Gauge.builder("triply.coalescing.inflight", inFlight, Map::size)
+                .description("Coalesced backend reads currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the result of {@code read}, shared with concurrent calls for the same
+     * operation and key. Callers normalize {@code key} so that equivalent requests
+     * map to the same flight.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        Flight flight = new Flight(operation, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(flight, own);
+        if (shared == null) {
+            calls(operation, "executed").increment();
+            try {
+                T result = read.get();
+                own.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(flight, own);
+            }
+        }
+
+        calls(operation, "shared").increment();
+        try {
+            return (T) shared.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            calls(operation, "timed_out").increment();
+            throw new QueryTimeoutException("Timed out after " + timeout + " waiting for in-flight "
+                    + operation + " of " + key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("In-flight " + operation + " of " + key + " was cancelled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for in-flight " + operation + " of " + key, e);
+        }
+    }
+
+    /**
+     * Detaches the call in flight for {@code (operation, key)}, if any, so reads
+     * arriving after a write start a fresh call instead of sharing one that may
+     * predate the write. Callers already waiting still get its result.
+     */
+    public void forget(String operation, String key) {
+        inFlight.remove(new Flight(operation, key));
+    }
+
+    private Counter calls(String operation, String outcome) {
+        return Counter.builder("triply.coalescing.calls")
+                .description("Coalesced reads by whether they ran the backend call, shared one or gave up waiting")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Flight(String operation, String key) {}
+}
@@ -0,0 +1,81 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.Wishlist;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache for wishlist reads. Entries expire after
+ * {@code triply.wishlists.cache.ttl}, which bounds how stale another node's
+ * writes can appear; this node's writes invalidate the affected entries directly.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics.
+ */
+@Component
+public class WishlistCache {
+
+    private static final String ALL_NAMES = "*";
+
+    private final Cache<String, Wishlist> wishlists;
+    private final Cache<String, List<String>> names;
+
+    @Autowired
+    public WishlistCache(MeterRegistry meterRegistry,
+                         @Value("${triply.wishlists.cache.max-size:10000}") long maxSize,
+                         @Value("${triply.wishlists.cache.ttl:30s}") Duration ttl) {
+        this.wishlists = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.names = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, wishlists, "wishlists");
+        CaffeineCacheMetrics.monitor(meterRegistry, names, "wishlistNames");
+    }
+
+    public Wishlist getWishlist(String name, Function<String, Wishlist> loader) {
+        return wishlists.get(name, loader);
+    }
+
+    public Wishlist getIfPresent(String name) {
+        return wishlists.getIfPresent(name);
+    }
+
+    public void put(String name, Wishlist wishlist) {
+        wishlists.put(name, wishlist);
+    }
+
+    public List<String> getAllNames(Supplier<List<String>> loader) {
+        return names.get(ALL_NAMES, key -> List.copyOf(loader.get()));
+    }
+
+    public void invalidateWishlist(String name) {
+        wishlists.invalidate(name);
+    }
+
+    public void invalidateNames() {
+        names.invalidate(ALL_NAMES);
+    }
+
+    public CacheStats getWishlistStats() {
+        return wishlists.stats();
+    }
+
+    public CacheStats getNameStats() {
+        return names.stats();
+    }
+}
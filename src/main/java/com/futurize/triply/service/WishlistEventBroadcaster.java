@@ -0,0 +1,196 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.WishlistEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans out {@link WishlistEvent}s to server-sent event subscribers of each
+ * wishlist. An idle subscriber is only an async request and a small bounded
+ * buffer; events are written by short-lived virtual threads that exist only while
+ * a buffer is being drained. A subscriber whose buffer overflows is dropped
+ * instead of slowing down publishers, and clients are expected to reconnect.
+ * Only changes made through this instance are published.
+ */
+@Component
+public class WishlistEventBroadcaster {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WishlistEventBroadcaster.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Counter slowConsumerDrops;
+    private final Counter sendFailures;
+
+    @Autowired
+    public WishlistEventBroadcaster(MeterRegistry meterRegistry,
+                                    @Value("${triply.wishlists.events.buffer-size:32}") int bufferSize,
+                                    @Value("${triply.wishlists.events.timeout:30m}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("triply.wishlists.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open wishlist event streams")
+                .register(meterRegistry);
+        this.slowConsumerDrops = Counter.builder("triply.wishlists.events.dropped")
+                .description("Wishlist event streams closed by the server")
+                .tag("reason", "slow_consumer")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("triply.wishlists.events.dropped")
+                .description("Wishlist event streams closed by the server")
+                .tag("reason", "send_failed")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String wishlistName) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(wishlistName, emitter);
+        // compute rather than computeIfAbsent, so this cannot race with the last subscriber removing the set
+        subscribers.compute(wishlistName, (key, listeners) -> {
+            Set<Subscriber> updated = listeners != null ? listeners : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(error -> subscriber.remove());
+        return emitter;
+    }
+
+    public void publish(WishlistEvent event) {
+        Set<Subscriber> listeners = subscribers.get(event.getWishlistName());
+        if (listeners == null) {
+            return;
+        }
+        for (Subscriber subscriber : listeners) {
+            subscriber.offer(event);
+        }
+    }
+
+    /** Keeps idle connections open through proxies and detects clients that went away. */
+    @Scheduled(fixedRateString = "${triply.wishlists.events.heartbeat-interval:15s}")
+    public void heartbeat() {
+        for (Set<Subscriber> listeners : subscribers.values()) {
+            for (Subscriber subscriber : listeners) {
+                if (subscriber.queue.isEmpty()) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(listeners -> listeners.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdown();
+    }
+
+    private final class Subscriber {
+
+        private final String wishlistName;
+        private final SseEmitter emitter;
+        private final Queue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        Subscriber(String wishlistName, SseEmitter emitter) {
+            this.wishlistName = wishlistName;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (removed.get()) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                log.debug("Dropping slow subscriber of wishlist {}", wishlistName);
+                slowConsumerDrops.increment();
+                remove();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!removed.get() && (item = queue.poll()) != null) {
+                    if (item == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        WishlistEvent event = (WishlistEvent) item;
+                        emitter.send(SseEmitter.event()
+                                .name(event.getType().name().toLowerCase(Locale.ROOT))
+                                .data(event));
+                        if (event.getType() == WishlistEvent.Type.WISHLIST_DELETED) {
+                            remove();
+                            emitter.complete();
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                sendFailures.increment();
+                remove();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (!removed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void remove() {
+            if (!removed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(wishlistName, (key, listeners) -> {
+                listeners.remove(this);
+                return listeners.isEmpty() ? null : listeners;
+            });
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * One-off job that re-keys wishlists created with generated ids under their
+ * deterministic {@link Wishlist#idFor(String) name-derived} id, merging places if
+ * both exist, and moves places stored inline on the wishlist into
+ * {@link WishlistItem} documents, setting {@code placeCount} from the items. It
+ * reads every wishlist, so it is off by default; enable it with
+ * {@code triply.wishlists.key-migration.enabled=true} until it logs nothing left
+ * to migrate.
+ */
+@Component
+@ConditionalOnProperty(name = "triply.wishlists.key-migration.enabled", havingValue = "true")
+public class WishlistKeyMigration implements ApplicationRunner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WishlistKeyMigration.class);
+
+    private final WishlistRepository wishlistRepository;
+    private final WishlistItemRepository wishlistItemRepository;
+
+    @Autowired
+    public WishlistKeyMigration(WishlistRepository wishlistRepository,
+                                WishlistItemRepository wishlistItemRepository) {
+        this.wishlistRepository = wishlistRepository;
+        this.wishlistItemRepository = wishlistItemRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int migrated = 0;
+        for (Wishlist legacy : wishlistRepository.findAllWishlists()) {
+            String name = legacy.getName();
+            String id = Wishlist.idFor(name);
+            boolean rekey = !id.equals(legacy.getId());
+            if (!rekey && legacy.getPlaceNames().isEmpty()) {
+                continue;
+            }
+            // Items have deterministic ids, so re-running after a partial migration is harmless
+            legacy.getPlaceNames().forEach(place -> moveToItem(name, place));
+            if (rekey) {
+                Optional<Wishlist> existing = wishlistRepository.findById(id);
+                if (existing.isPresent()) {
+                    existing.get().getPlaceNames().forEach(place -> moveToItem(name, place));
+                } else {
+                    Wishlist rekeyed = new Wishlist();
+                    rekeyed.setId(id);
+                    rekeyed.setName(name);
+                    try {
+                        wishlistRepository.insert(rekeyed);
+                    } catch (DuplicateKeyException e) {
+                        // Created concurrently under the new id, with no inline places
+                    }
+                }
+            }
+            // Not a save, which would overwrite a placeCount adjusted concurrently by an add or remove
+            wishlistRepository.clearInlinePlaces(id, () -> (int) wishlistItemRepository.countByWishlistName(name));
+            if (rekey) {
+                wishlistRepository.deleteById(legacy.getId());
+            }
+            migrated++;
+        }
+        log.info("Migrated {} wishlists to name-derived keys and item documents", migrated);
+    }
+
+    private void moveToItem(String name, String placeName) {
+        wishlistItemRepository.insertIfAbsent(new WishlistItem(name, null, placeName, null));
+    }
+}
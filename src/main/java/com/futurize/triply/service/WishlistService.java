@@ -3,23 +3,66 @@ package com.futurize.triply.service;
 import com.futurize.triply.exception.ResourceAlreadyExistsException;
 import com.futurize.triply.exception.ResourceNotFoundException;
 import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistCounts;
+import com.futurize.triply.model.WishlistEvent;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.model.WishlistPlaceChange;
+import com.futurize.triply.model.WishlistPlaces;
+import com.futurize.triply.model.WishlistSummary;
+import com.futurize.triply.repository.WishlistItemRepository;
 import com.futurize.triply.repository.WishlistRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class WishlistService {
 
+    private static final LocalDateTime FIRST_PAGE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final WishlistRepository wishlistRepository;
+    private final WishlistItemRepository wishlistItemRepository;
+    private final WishlistCache wishlistCache;
+    private final Scheduler repositoryScheduler;
+    private final PlaceSuggestionIndex placeSuggestionIndex;
+    private final WishlistEventBroadcaster eventBroadcaster;
+    private final RequestCoalescer requestCoalescer;
+    private final int batchConcurrency;
 
     @Autowired
-    public WishlistService(WishlistRepository wishlistRepository) {
+    public WishlistService(WishlistRepository wishlistRepository,
+                           WishlistItemRepository wishlistItemRepository,
+                           WishlistCache wishlistCache,
+                           Scheduler repositoryScheduler,
+                           PlaceSuggestionIndex placeSuggestionIndex,
+                           WishlistEventBroadcaster eventBroadcaster,
+                           RequestCoalescer requestCoalescer,
+                           @Value("${triply.wishlists.batch.concurrency:16}") int batchConcurrency) {
         this.wishlistRepository = wishlistRepository;
+        this.wishlistItemRepository = wishlistItemRepository;
+        this.wishlistCache = wishlistCache;
+        this.repositoryScheduler = repositoryScheduler;
+        this.placeSuggestionIndex = placeSuggestionIndex;
+        this.eventBroadcaster = eventBroadcaster;
+        this.requestCoalescer = requestCoalescer;
+        this.batchConcurrency = batchConcurrency;
     }
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WishlistService.class);
@@ -27,7 +70,7 @@ public class WishlistService {
     public List<String> getAllWishlistNames() {
         try {
             log.info("Fetching all wishlist names");
-            List<String> names = wishlistRepository.findAllWishlistNames();
+            List<String> names = wishlistCache.getAllNames(wishlistRepository::findAllWishlistNames);
             log.info("Found {} wishlists", names.size());
             return names;
         } catch (Exception e) {
@@ -36,46 +79,291 @@ public class WishlistService {
         }
     }
 
-    public Wishlist createWishlist(String name) {
-        if (wishlistRepository.existsByName(name)) {
-            throw new ResourceAlreadyExistsException("Wishlist with this name already exists");
-        }
+    /**
+     * Returns one page of wishlist names with their place counts, ordered by name
+     * and starting after {@code afterName} (or from the beginning when it is null).
+     */
+    public List<WishlistSummary> listWishlists(String afterName, int limit) {
+        return wishlistRepository.findSummariesAfter(afterName, limit);
+    }
 
+    public Wishlist createWishlist(String name) {
         Wishlist wishlist = new Wishlist();
+        wishlist.setId(Wishlist.idFor(name));
         wishlist.setName(name);
-        return wishlistRepository.save(wishlist);
+        try {
+            return wishlistRepository.insert(wishlist);
+        } catch (DuplicateKeyException e) {
+            throw new ResourceAlreadyExistsException("Wishlist with this name already exists");
+        } finally {
+            wishlistCache.invalidateNames();
+        }
     }
 
+    /**
+     * Returns the wishlist with all of its place names. For large wishlists prefer
+     * {@link #listItems}, which reads one page at a time. Concurrent cache misses
+     * for the same wishlist share one backend read.
+     */
     public Wishlist getWishlist(String name) {
-        return wishlistRepository.findByName(name)
-                .orElseThrow(() -> new ResourceNotFoundException("Wishlist not found"));
+        Wishlist wishlist = wishlistCache.getWishlist(name, key -> requestCoalescer.execute("wishlist.findById", key,
+                () -> wishlistRepository.findById(Wishlist.idFor(key)).map(this::withItems).orElse(null)));
+        if (wishlist == null) {
+            throw new ResourceNotFoundException("Wishlist not found");
+        }
+        return wishlist;
     }
 
     public Set<String> getWishlistPlaces(String name) {
-        return wishlistRepository.findByName(name)
-                .orElseThrow(() -> new ResourceNotFoundException("Wishlist not found"))
-                .getPlaceNames();
+        return getWishlist(name).getPlaceNames();
     }
 
-    public Wishlist addPlaceToWishlist(String name, String placeName) {
-        Wishlist wishlist = wishlistRepository.findByName(name)
-                .orElseThrow(() -> new ResourceNotFoundException("Wishlist not found"));
-
-        wishlist.addPlace(placeName);
-        return wishlistRepository.save(wishlist);
+    /**
+     * Adds a place as its own item document and bumps the wishlist's place count.
+     * Returns the stored item, which is the existing one if the place was already
+     * on the wishlist.
+     */
+    public WishlistItem addPlaceToWishlist(String name, String placeName) {
+        WishlistItem item = new WishlistItem(name, null, placeName, null);
+        if (!addPlace(item)) {
+            return wishlistItemRepository.findById(item.getId()).orElse(item);
+        }
+        return item;
     }
 
     public void removePlaceFromWishlist(String name, String placeName) {
-        Wishlist wishlist = wishlistRepository.findByName(name)
-                .orElseThrow(() -> new ResourceNotFoundException("Wishlist not found"));
+        removePlace(name, placeName);
+    }
+
+    /**
+     * Returns one page of the wishlist's items, oldest first, optionally only
+     * visited or unvisited ones. Pass {@link #cursorFor} of the last item of a
+     * page as {@code cursor} to get the next one.
+     */
+    public List<WishlistItem> listItems(String name, String cursor, int limit, Boolean visited) {
+        if (!wishlistRepository.existsById(Wishlist.idFor(name))) {
+            throw new ResourceNotFoundException("Wishlist not found");
+        }
+        LocalDateTime afterAddedOn = FIRST_PAGE;
+        String afterId = "";
+        if (cursor != null) {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                afterAddedOn = LocalDateTime.parse(parts[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            afterId = parts[1];
+        }
+        return visited == null
+                ? wishlistItemRepository.findPageAfter(name, afterAddedOn, afterId, limit)
+                : wishlistItemRepository.findPageByVisitedAfter(name, afterAddedOn, afterId, visited, limit);
+    }
+
+    public String cursorFor(WishlistItem item) {
+        String position = item.getAddedOn() + "|" + item.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public WishlistCounts getCounts(String name) {
+        if (!wishlistRepository.existsById(Wishlist.idFor(name))) {
+            throw new ResourceNotFoundException("Wishlist not found");
+        }
+        long total = wishlistItemRepository.countByWishlistName(name);
+        long visited = wishlistItemRepository.countByWishlistNameAndVisited(name, true);
+        return new WishlistCounts(name, total, visited, total - visited);
+    }
 
-        wishlist.removePlace(placeName);
-        wishlistRepository.save(wishlist);
+    /**
+     * Updates the visited flag and/or notes of one item; null arguments are left
+     * unchanged. Marking an item visited records when.
+     */
+    public WishlistItem updateItem(String name, String placeName, Boolean visited, String notes) {
+        WishlistItem item = wishlistItemRepository.findById(WishlistItem.idFor(name, placeName))
+                .orElseThrow(() -> new ResourceNotFoundException("Place not on wishlist"));
+        if (visited != null && visited != item.isVisited()) {
+            item.setVisited(visited);
+            item.setVisitedOn(visited ? LocalDateTime.now() : null);
+        }
+        if (notes != null) {
+            item.setNotes(notes);
+        }
+        return wishlistItemRepository.save(item);
     }
 
     public void deleteWishlist(String name) {
-        Wishlist wishlist = wishlistRepository.findByName(name)
-                .orElseThrow(() -> new ResourceNotFoundException("Wishlist not found"));
-        wishlistRepository.delete(wishlist);
+        String id = Wishlist.idFor(name);
+        try {
+            if (!wishlistRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Wishlist not found");
+            }
+            wishlistRepository.deleteById(id);
+            wishlistItemRepository.removeAllForWishlist(name);
+            publish(WishlistEvent.Type.WISHLIST_DELETED, name, null);
+        } finally {
+            invalidate(name);
+            wishlistCache.invalidateNames();
+        }
+    }
+
+    /**
+     * Fetches several wishlists at once. Cached entries are served directly and the
+     * rest are read with a single multi-get, which the Couchbase repository issues
+     * as parallel key-value gets, plus one query for their items. Results are in
+     * request order.
+     */
+    public List<WishlistPlaces> getWishlists(List<String> names) {
+        Map<String, Wishlist> found = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String name : names) {
+            Wishlist cached = wishlistCache.getIfPresent(name);
+            if (cached != null) {
+                found.put(name, cached);
+            } else {
+                missingIds.add(Wishlist.idFor(name));
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            List<Wishlist> loaded = new ArrayList<>();
+            wishlistRepository.findAllById(missingIds).forEach(loaded::add);
+            if (!loaded.isEmpty()) {
+                // Items of every loaded wishlist in one query rather than one per wishlist
+                Map<String, Set<String>> places = new HashMap<>();
+                List<String> loadedNames = loaded.stream().map(Wishlist::getName).collect(Collectors.toList());
+                for (WishlistItem item : wishlistItemRepository.findPlaceNamesIn(loadedNames)) {
+                    places.computeIfAbsent(item.getWishlistName(), key -> new LinkedHashSet<>())
+                            .add(item.getPlaceName());
+                }
+                for (Wishlist wishlist : loaded) {
+                    Set<String> merged = new LinkedHashSet<>(wishlist.getPlaceNames());
+                    merged.addAll(places.getOrDefault(wishlist.getName(), Set.of()));
+                    wishlist.setPlaceNames(merged);
+                    wishlistCache.put(wishlist.getName(), wishlist);
+                    found.put(wishlist.getName(), wishlist);
+                }
+            }
+        }
+        return names.stream()
+                .map(name -> found.containsKey(name)
+                        ? new WishlistPlaces(name, "ok", found.get(name).getPlaceNames())
+                        : new WishlistPlaces(name, "not_found", null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Applies a batch of place additions and removals, running up to
+     * {@code triply.wishlists.batch.concurrency} of them in parallel. Each change is
+     * independent; its outcome is reported in the returned list, in request order.
+     */
+    public List<WishlistPlaceChange> applyPlaceChanges(List<WishlistPlaceChange> changes) {
+        return Flux.fromIterable(changes)
+                .flatMapSequential(change -> Mono.fromCallable(() -> applyPlaceChange(change))
+                        .subscribeOn(repositoryScheduler), batchConcurrency)
+                .collectList()
+                .block();
+    }
+
+    private WishlistPlaceChange applyPlaceChange(WishlistPlaceChange change) {
+        WishlistPlaceChange result = new WishlistPlaceChange(
+                change.getWishlistName(), change.getPlaceName(), change.getAction(), null);
+        if (change.getWishlistName() == null || change.getPlaceName() == null || change.getAction() == null) {
+            result.setStatus("invalid");
+            return result;
+        }
+        try {
+            if (change.getAction() == WishlistPlaceChange.Action.ADD) {
+                addPlace(new WishlistItem(change.getWishlistName(), null, change.getPlaceName(), null));
+            } else {
+                removePlace(change.getWishlistName(), change.getPlaceName());
+            }
+            result.setStatus("ok");
+        } catch (ResourceNotFoundException e) {
+            result.setStatus("not_found");
+        } catch (Exception e) {
+            log.error("Error applying {} of {} to wishlist {}",
+                    change.getAction(), change.getPlaceName(), change.getWishlistName(), e);
+            result.setStatus("error");
+        }
+        return result;
+    }
+
+    /**
+     * Inserts the item and, if it was new, counts it on the wishlist. Returns false
+     * if the place was already on the wishlist.
+     */
+    private boolean addPlace(WishlistItem item) {
+        String name = item.getWishlistName();
+        if (!wishlistRepository.existsById(Wishlist.idFor(name))) {
+            throw new ResourceNotFoundException("Wishlist not found");
+        }
+        try {
+            if (!wishlistItemRepository.insertIfAbsent(item)) {
+                return false;
+            }
+            if (!wishlistRepository.adjustPlaceCount(Wishlist.idFor(name), 1)) {
+                // Deleted since the check above, possibly after its items were removed
+                wishlistItemRepository.removeIfPresent(item.getId());
+                throw new ResourceNotFoundException("Wishlist not found");
+            }
+        } finally {
+            invalidate(name);
+        }
+        placeSuggestionIndex.record(item.getPlaceName(), 1);
+        publish(WishlistEvent.Type.PLACE_ADDED, name, item.getPlaceName());
+        return true;
+    }
+
+    /**
+     * Removes the place's item and, on wishlists not yet migrated to items, its
+     * inline entry, counting each one removed off the wishlist.
+     */
+    private void removePlace(String name, String placeName) {
+        String id = Wishlist.idFor(name);
+        if (!wishlistRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Wishlist not found");
+        }
+        int removed = 0;
+        try {
+            if (wishlistItemRepository.removeIfPresent(WishlistItem.idFor(name, placeName))) {
+                wishlistRepository.adjustPlaceCount(id, -1);
+                removed++;
+            }
+            if (wishlistRepository.removeInlinePlace(id, placeName)) {
+                removed++;
+            }
+        } finally {
+            invalidate(name);
+        }
+        if (removed == 0) {
+            return;
+        }
+        placeSuggestionIndex.record(placeName, -removed);
+        publish(WishlistEvent.Type.PLACE_REMOVED, name, placeName);
+    }
+
+    /**
+     * Fills in the wishlist's place names from its items, keeping any still stored
+     * inline by wishlists that have not been migrated yet.
+     */
+    private Wishlist withItems(Wishlist wishlist) {
+        Set<String> places = new LinkedHashSet<>(wishlist.getPlaceNames());
+        for (WishlistItem item : wishlistItemRepository.findPlaceNames(wishlist.getName())) {
+            places.add(item.getPlaceName());
+        }
+        wishlist.setPlaceNames(places);
+        return wishlist;
+    }
+
+    // Also detaches any read in flight, which may have started before the write
+    private void invalidate(String name) {
+        requestCoalescer.forget("wishlist.findById", name);
+        wishlistCache.invalidateWishlist(name);
+    }
+
+    private void publish(WishlistEvent.Type type, String name, String placeName) {
+        eventBroadcaster.publish(new WishlistEvent(type, name, placeName, Instant.now()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.futurize.triply.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Storage for large binary content such as image bytes. Documents keep only the
+ * blob key, and content is streamed in and out without being buffered in heap.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams {@code content} into the blob {@code key}, replacing any existing
+     * blob atomically, and returns the number of bytes written.
+     */
+    long write(String key, InputStream content) throws IOException;
+
+    /**
+     * Renames blob {@code sourceKey} to {@code targetKey}, replacing any existing
+     * blob at the target atomically.
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    Optional<Resource> read(String key);
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+}
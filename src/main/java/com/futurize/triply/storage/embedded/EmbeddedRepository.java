@@ -0,0 +1,293 @@
+package com.futurize.triply.storage.embedded;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implements a repository interface on top of a {@link LogStructuredStore}.
+ * CRUD methods and single-property derived queries ({@code findByX},
+ * {@code countByX}, {@code existsByX}) are handled generically by scanning the
+ * entity's keys; {@code @Query} and custom fragment methods are supplied with
+ * {@link #method}. Documents are stored as JSON under
+ * {@code <EntityType>/<id>}. Entities with a {@code @Version} field get the same
+ * optimistic locking as on Couchbase: saving version 0 inserts and fails with
+ * {@link DuplicateKeyException} if the id exists, and saving or deleting any
+ * other version fails with {@link OptimisticLockingFailureException} unless it
+ * matches the stored one.
+ */
+public class EmbeddedRepository<T> implements InvocationHandler {
+
+    private final LogStructuredStore store;
+    private final ObjectMapper objectMapper;
+    private final Class<T> entityType;
+    private final Field idField;
+    private final Field versionField;
+    private final Object versionLock = new Object();
+    private final String keyPrefix;
+    private final Map<String, BiFunction<EmbeddedRepository<T>, Object[], Object>> methods = new HashMap<>();
+
+    public EmbeddedRepository(LogStructuredStore store, ObjectMapper objectMapper, Class<T> entityType) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.entityType = entityType;
+        this.keyPrefix = entityType.getSimpleName() + "/";
+        this.idField = Stream.of(entityType.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(Id.class))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(entityType + " has no @Id field"));
+        ReflectionUtils.makeAccessible(idField);
+        this.versionField = Stream.of(entityType.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(Version.class))
+                .findFirst()
+                .orElse(null);
+        if (versionField != null) {
+            ReflectionUtils.makeAccessible(versionField);
+        }
+    }
+
+    public EmbeddedRepository<T> method(String name, BiFunction<EmbeddedRepository<T>, Object[], Object> impl) {
+        methods.put(name, impl);
+        return this;
+    }
+
+    public <R> R as(Class<R> repositoryType) {
+        return repositoryType.cast(Proxy.newProxyInstance(
+                repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, this));
+    }
+
+    public Optional<T> findById(String id) {
+        try {
+            return store.get(keyPrefix + id).map(this::decode).map(this::stored);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Failed to read " + id, e);
+        }
+    }
+
+    public T save(T entity) {
+        String id = idOf(entity);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            ReflectionUtils.setField(idField, entity, id);
+        }
+        if (versionField == null) {
+            return write(id, entity);
+        }
+        synchronized (versionLock) {
+            long expected = versionOf(entity);
+            Optional<T> stored = findById(id);
+            if (expected == 0 && stored.isPresent()) {
+                throw new DuplicateKeyException(entityType.getSimpleName() + " " + id + " already exists");
+            }
+            if (expected != 0 && (stored.isEmpty() || versionOf(stored.get()) != expected)) {
+                throw new OptimisticLockingFailureException(entityType.getSimpleName() + " " + id
+                        + " was modified or removed concurrently");
+            }
+            ReflectionUtils.setField(versionField, entity, expected + 1);
+            try {
+                return write(id, entity);
+            } catch (RuntimeException e) {
+                ReflectionUtils.setField(versionField, entity, expected);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Deletes {@code entity}, checking its version if it has one. Returns false if
+     * it did not exist.
+     */
+    public boolean delete(T entity) {
+        String id = idOf(entity);
+        if (versionField == null) {
+            return deleteById(id);
+        }
+        synchronized (versionLock) {
+            Optional<T> stored = findById(id);
+            if (stored.isPresent() && versionOf(stored.get()) != versionOf(entity)) {
+                throw new OptimisticLockingFailureException(entityType.getSimpleName() + " " + id
+                        + " was modified concurrently");
+            }
+            return deleteById(id);
+        }
+    }
+
+    private T write(String id, T entity) {
+        try {
+            store.put(keyPrefix + id, objectMapper.writeValueAsBytes(entity));
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Failed to write " + id, e);
+        }
+        return entity;
+    }
+
+    public boolean deleteById(String id) {
+        try {
+            return store.delete(keyPrefix + id);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Failed to delete " + id, e);
+        }
+    }
+
+    /**
+     * Entities whose id sorts after {@code afterId}, in id order.
+     */
+    public Stream<T> streamAfter(String afterId) {
+        return store.keys(keyPrefix).tailSet(keyPrefix + afterId, false).stream()
+                .map(key -> findById(key.substring(keyPrefix.length())))
+                .flatMap(Optional::stream);
+    }
+
+    public Stream<T> streamAll() {
+        return streamAfter("");
+    }
+
+    public String idOf(T entity) {
+        return (String) ReflectionUtils.getField(idField, entity);
+    }
+
+    // Like a CAS, the version of a stored document is never 0; documents written
+    // before versions were checked read as version 1
+    private T stored(T entity) {
+        if (versionField != null && versionOf(entity) == 0) {
+            ReflectionUtils.setField(versionField, entity, 1L);
+        }
+        return entity;
+    }
+
+    private long versionOf(T entity) {
+        return ((Number) ReflectionUtils.getField(versionField, entity)).longValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object[] a = args == null ? new Object[0] : args;
+        String name = method.getName();
+        BiFunction<EmbeddedRepository<T>, Object[], Object> custom = methods.get(name);
+        if (custom != null) {
+            return custom.apply(this, a);
+        }
+        switch (name) {
+            case "save":
+                return save((T) a[0]);
+            case "saveAll": {
+                List<T> saved = new ArrayList<>();
+                ((Iterable<T>) a[0]).forEach(entity -> saved.add(save(entity)));
+                return saved;
+            }
+            case "findById":
+                return findById((String) a[0]);
+            case "existsById":
+                return store.contains(keyPrefix + a[0]);
+            case "findAllById": {
+                List<T> found = new ArrayList<>();
+                ((Iterable<String>) a[0]).forEach(id -> findById(id).ifPresent(found::add));
+                return found;
+            }
+            case "findAll":
+                if (a.length == 0) {
+                    return streamAll().collect(Collectors.toList());
+                }
+                if (a[0] instanceof Pageable pageable) {
+                    return findPage(pageable);
+                }
+                break;
+            case "count":
+                return (long) store.keys(keyPrefix).size();
+            case "deleteById":
+                deleteById((String) a[0]);
+                return null;
+            case "delete":
+                delete((T) a[0]);
+                return null;
+            case "deleteAllById":
+                ((Iterable<String>) a[0]).forEach(this::deleteById);
+                return null;
+            case "deleteAll":
+                if (a.length == 0) {
+                    List.copyOf(store.keys(keyPrefix)).forEach(key -> deleteById(key.substring(keyPrefix.length())));
+                } else {
+                    ((Iterable<T>) a[0]).forEach(this::delete);
+                }
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == a[0];
+            case "toString":
+                return "EmbeddedRepository<" + entityType.getSimpleName() + ">";
+            default:
+                break;
+        }
+        if (a.length == 1 && (name.startsWith("findBy") || name.startsWith("countBy") || name.startsWith("existsBy"))) {
+            return derivedQuery(method, a[0]);
+        }
+        if (method.isDefault()) {
+            return InvocationHandler.invokeDefault(proxy, method, args);
+        }
+        throw new UnsupportedOperationException("Not supported by the embedded store: " + method);
+    }
+
+    private Object derivedQuery(Method method, Object value) {
+        String name = method.getName();
+        String property = StringUtils.uncapitalize(name.substring(name.indexOf("By") + 2));
+        Stream<T> matches = streamAll()
+                .filter(entity -> Objects.equals(new BeanWrapperImpl(entity).getPropertyValue(property), value));
+        if (name.startsWith("countBy")) {
+            return matches.count();
+        }
+        if (name.startsWith("existsBy")) {
+            return matches.findAny().isPresent();
+        }
+        if (Optional.class.isAssignableFrom(method.getReturnType())) {
+            return matches.findFirst();
+        }
+        if (entityType.isAssignableFrom(method.getReturnType())) {
+            return matches.findFirst().orElse(null);
+        }
+        return matches.collect(Collectors.toList());
+    }
+
+    private Page<T> findPage(Pageable pageable) {
+        List<T> content = streamAll()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, store.keys(keyPrefix).size());
+    }
+
+    private T decode(byte[] json) {
+        try {
+            return objectMapper.readValue(json, entityType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
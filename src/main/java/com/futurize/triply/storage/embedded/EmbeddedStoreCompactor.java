@@ -0,0 +1,44 @@
+package com.futurize.triply.storage.embedded;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Periodically compacts the embedded store once superseded records make up more
+ * than {@code triply.embedded.compaction-threshold} of the log.
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedStoreCompactor {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(EmbeddedStoreCompactor.class);
+
+    private final LogStructuredStore store;
+    private final double threshold;
+
+    @Autowired
+    public EmbeddedStoreCompactor(LogStructuredStore store,
+                                  @Value("${triply.embedded.compaction-threshold:0.5}") double threshold) {
+        this.store = store;
+        this.threshold = threshold;
+    }
+
+    @Scheduled(initialDelayString = "${triply.embedded.compaction-interval:10m}",
+               fixedDelayString = "${triply.embedded.compaction-interval:10m}")
+    public void compactIfNeeded() throws IOException {
+        double garbage = store.garbageRatio();
+        if (garbage < threshold) {
+            return;
+        }
+        long before = store.sizeOnDisk();
+        long start = System.currentTimeMillis();
+        store.compact();
+        log.info("Compacted embedded store from {} to {} bytes in {} ms",
+                before, store.sizeOnDisk(), System.currentTimeMillis() - start);
+    }
+}
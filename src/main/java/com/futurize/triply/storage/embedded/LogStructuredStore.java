@@ -0,0 +1,281 @@
+package com.futurize.triply.storage.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key-value store in a single file. Every put or delete appends a
+ * record; an in-memory sorted index maps each live key to the position of its
+ * latest record, so a read is one positional read. Superseded records are
+ * reclaimed by {@link #compact()}, which rewrites the live records to a new file
+ * and swaps it in atomically.
+ *
+ * <p>Record layout: key length (int), value length (int, -1 for a delete), key
+ * bytes, value bytes, CRC32 of key and value (int). On open the log is replayed
+ * to rebuild the index, and a torn record at the tail is truncated.
+ */
+public class LogStructuredStore implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int TOMBSTONE = -1;
+
+    private final Path file;
+    private final boolean syncWrites;
+    private final ConcurrentSkipListMap<String, Location> index = new ConcurrentSkipListMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private long writePosition;
+    private long liveBytes;
+
+    public LogStructuredStore(Path file, boolean syncWrites) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.syncWrites = syncWrites;
+        Files.createDirectories(this.file.getParent());
+        this.channel = open(this.file);
+        recover();
+    }
+
+    public Optional<byte[]> get(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return Optional.empty();
+            }
+            ByteBuffer value = ByteBuffer.allocate(location.valueLength);
+            readFully(channel, value, location.offset + HEADER_BYTES + location.keyLength);
+            return Optional.of(value.array());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public void put(String key, byte[] value) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Location location = append(key, value);
+            Location previous = index.put(key, location);
+            liveBytes += location.length() - (previous == null ? 0 : previous.length());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean delete(String key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Location previous = index.get(key);
+            if (previous == null) {
+                return false;
+            }
+            append(key, null);
+            index.remove(key);
+            liveBytes -= previous.length();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Live keys starting with {@code prefix}, in sorted order. The view is live,
+     * so iterating it while writing sees a weakly consistent snapshot.
+     */
+    public NavigableSet<String> keys(String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).navigableKeySet();
+    }
+
+    /**
+     * Share of the log occupied by superseded records and deletes.
+     */
+    public double garbageRatio() {
+        lock.readLock().lock();
+        try {
+            return writePosition == 0 ? 0.0 : 1.0 - (double) liveBytes / writePosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeOnDisk() {
+        lock.readLock().lock();
+        try {
+            return writePosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records into a fresh log and replaces the current one.
+     * Reads and writes wait while compaction runs. If it fails, the store keeps
+     * using the current log.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            Map<String, Location> relocated = new ConcurrentSkipListMap<>();
+            long position = 0;
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    ByteBuffer record = ByteBuffer.allocate(location.length());
+                    readFully(channel, record, location.offset);
+                    record.flip();
+                    while (record.hasRemaining()) {
+                        target.write(record, position + record.position());
+                    }
+                    relocated.put(entry.getKey(), new Location(position, location.keyLength, location.valueLength));
+                    position += location.length();
+                }
+                target.force(true);
+            } catch (IOException | RuntimeException e) {
+                // Nothing has been swapped yet, so only the partial copy needs removing
+                try {
+                    Files.deleteIfExists(compacted);
+                } catch (IOException cleanup) {
+                    e.addSuppressed(cleanup);
+                }
+                throw e;
+            }
+            channel.close();
+            try {
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // The original log is untouched and the index still points into it
+                channel = open(file);
+                Files.deleteIfExists(compacted);
+                throw e;
+            }
+            channel = open(file);
+            index.putAll(relocated);
+            writePosition = position;
+            liveBytes = position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Location append(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == null ? TOMBSTONE : value.length;
+        int payload = keyBytes.length + Math.max(0, valueLength);
+
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        if (value != null) {
+            crc.update(value);
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload + CHECKSUM_BYTES);
+        record.putInt(keyBytes.length).putInt(valueLength).put(keyBytes);
+        if (value != null) {
+            record.put(value);
+        }
+        record.putInt((int) crc.getValue()).flip();
+
+        long offset = writePosition;
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        if (syncWrites) {
+            channel.force(false);
+        }
+        writePosition += record.limit();
+        return new Location(offset, keyBytes.length, Math.max(0, valueLength));
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            long recordEnd = position + HEADER_BYTES + keyLength + Math.max(0, valueLength) + CHECKSUM_BYTES;
+            if (keyLength < 0 || valueLength < TOMBSTONE || recordEnd > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(keyLength + Math.max(0, valueLength) + CHECKSUM_BYTES);
+            readFully(channel, body, position + HEADER_BYTES);
+            body.flip();
+            CRC32 crc = new CRC32();
+            crc.update(body.array(), 0, keyLength + Math.max(0, valueLength));
+            if ((int) crc.getValue() != body.getInt(keyLength + Math.max(0, valueLength))) {
+                break;
+            }
+
+            String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            Location previous;
+            if (valueLength == TOMBSTONE) {
+                previous = index.remove(key);
+            } else {
+                Location location = new Location(position, keyLength, valueLength);
+                previous = index.put(key, location);
+                liveBytes += location.length();
+            }
+            if (previous != null) {
+                liveBytes -= previous.length();
+            }
+            position = recordEnd;
+        }
+        if (position < size) {
+            // Torn or corrupt tail from an interrupted write
+            channel.truncate(position);
+        }
+        writePosition = position;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of log at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private record Location(long offset, int keyLength, int valueLength) {
+        int length() {
+            return HEADER_BYTES + keyLength + valueLength + CHECKSUM_BYTES;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.futurize.triply.util;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.OptionalLong;
+
+/**
+ * 64-bit difference hash (dHash). The image is box-averaged down to a 9x8
+ * grayscale grid and each bit records whether a cell is brighter than its right
+ * neighbour, so resized or recompressed copies land within a few bits of each other.
+ */
+public final class PerceptualHashes {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+    private PerceptualHashes() {}
+
+    public static OptionalLong dHash(InputStream in) throws IOException {
+        BufferedImage image = ImageIO.read(in);
+        return image == null ? OptionalLong.empty() : OptionalLong.of(dHash(image));
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[] cells = grayscaleGrid(image);
+        long hash = 0L;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                hash <<= 1;
+                if (cells[y * WIDTH + x] > cells[y * WIDTH + x + 1]) {
+                    hash |= 1L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static double[] grayscaleGrid(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellY = Math.min(HEIGHT - 1, y * HEIGHT / height);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                double luma = 0.299 * ((rgb >> 16) & 0xff)
+                        + 0.587 * ((rgb >> 8) & 0xff)
+                        + 0.114 * (rgb & 0xff);
+                int cell = cellY * WIDTH + Math.min(WIDTH - 1, x * WIDTH / width);
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+        for (int i = 0; i < sums.length; i++) {
+            if (counts[i] > 0) {
+                sums[i] /= counts[i];
+            }
+        }
+        return sums;
+    }
+}
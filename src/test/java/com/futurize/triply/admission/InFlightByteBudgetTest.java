@@ -0,0 +1,114 @@
+package com.futurize.triply.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class InFlightByteBudgetTest {
+
+    @Test
+    void admitsUpToCapacityAndReleasesBackToZero() throws InterruptedException {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 1);
+
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, budget.acquire(60, 0, TimeUnit.MILLISECONDS));
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, budget.acquire(40, 0, TimeUnit.MILLISECONDS));
+        assertEquals(100, budget.inFlight());
+
+        budget.release(60);
+        budget.release(40);
+        assertEquals(0, budget.inFlight());
+        assertEquals(0, budget.queued());
+    }
+
+    @Test
+    void timesOutWhenNothingIsReleased() throws InterruptedException {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 1);
+        budget.acquire(100, 0, TimeUnit.MILLISECONDS);
+
+        assertEquals(InFlightByteBudget.Outcome.TIMED_OUT, budget.acquire(1, 20, TimeUnit.MILLISECONDS));
+        assertEquals(100, budget.inFlight());
+        assertEquals(0, budget.queued());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 1);
+        budget.acquire(100, 0, TimeUnit.MILLISECONDS);
+        CompletableFuture<InFlightByteBudget.Outcome> waiting = waitFor(budget, 10);
+        awaitQueued(budget, 1);
+
+        assertEquals(InFlightByteBudget.Outcome.QUEUE_FULL, budget.acquire(10, 1, TimeUnit.SECONDS));
+
+        budget.release(100);
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(10, budget.inFlight());
+    }
+
+    @Test
+    void releaseWakesWaiterOnlyOnceItFits() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 2);
+        budget.acquire(50, 0, TimeUnit.MILLISECONDS);
+        budget.acquire(50, 0, TimeUnit.MILLISECONDS);
+        CompletableFuture<InFlightByteBudget.Outcome> waiting = waitFor(budget, 80);
+        awaitQueued(budget, 1);
+
+        budget.release(50);
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+
+        budget.release(50);
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(80, budget.inFlight());
+    }
+
+    @Test
+    void newRequestsDoNotOvertakeQueuedOnes() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 2);
+        budget.acquire(90, 0, TimeUnit.MILLISECONDS);
+        CompletableFuture<InFlightByteBudget.Outcome> waiting = waitFor(budget, 50);
+        awaitQueued(budget, 1);
+
+        // Would fit in the remaining 10 bytes, but someone is already waiting
+        assertEquals(InFlightByteBudget.Outcome.TIMED_OUT, budget.acquire(5, 20, TimeUnit.MILLISECONDS));
+
+        budget.release(90);
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void oversizedRequestIsAdmittedAloneAndAccountedAsCapacity() throws Exception {
+        InFlightByteBudget budget = new InFlightByteBudget(100, 1);
+        budget.acquire(10, 0, TimeUnit.MILLISECONDS);
+        CompletableFuture<InFlightByteBudget.Outcome> oversized = waitFor(budget, 1_000);
+        awaitQueued(budget, 1);
+
+        budget.release(10);
+        assertEquals(InFlightByteBudget.Outcome.ADMITTED, oversized.get(5, TimeUnit.SECONDS));
+        assertEquals(100, budget.inFlight());
+
+        budget.release(1_000);
+        assertEquals(0, budget.inFlight());
+    }
+
+    private static CompletableFuture<InFlightByteBudget.Outcome> waitFor(InFlightByteBudget budget, long bytes) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return budget.acquire(bytes, 10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void awaitQueued(InFlightByteBudget budget, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (budget.queued() < queued && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(queued, budget.queued());
+    }
+}
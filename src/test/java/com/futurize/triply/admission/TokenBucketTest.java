@@ -0,0 +1,73 @@
+package com.futurize.triply.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void allowsBurstThenReportsWaitForNextToken() {
+        TokenBucket bucket = new TokenBucket(2, 3, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+        // Empty at 2 tokens per second: the next one is half a second away
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.tryAcquire());
+    }
+
+    @Test
+    void refillsContinuouslyWithElapsedTime() {
+        TokenBucket bucket = new TokenBucket(2, 3, now::get);
+        drain(bucket, 3);
+
+        advance(250);
+        long wait = bucket.tryAcquire();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), wait);
+
+        advance(250);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void rejectedAttemptsTakeNothing() {
+        TokenBucket bucket = new TokenBucket(1, 1, now::get);
+        drain(bucket, 1);
+
+        for (int i = 0; i < 5; i++) {
+            advance(100);
+            assertTrue(bucket.tryAcquire() > 0);
+        }
+        advance(500);
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    @Test
+    void refillIsCappedAtBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        drain(bucket, 2);
+
+        advance(60_000);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    private void drain(TokenBucket bucket, int tokens) {
+        for (int i = 0; i < tokens; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,141 @@
+package com.futurize.triply.config;
+
+import com.couchbase.client.java.json.JsonObject;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.ImageDigestRepository;
+import com.futurize.triply.repository.ImageRepository;
+import com.futurize.triply.repository.ItineraryRepository;
+import com.futurize.triply.repository.WishlistItemRepository;
+import com.futurize.triply.repository.WishlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.couchbase.repository.CouchbaseRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryPlanVerifierTest {
+
+    private static final String BUCKET = "`triply`";
+    private static final String TYPE_KEY = "_class";
+    private static final Pattern PARAMETER = Pattern.compile("\\$(\\d+)");
+
+    private static final List<Class<?>> REPOSITORIES = List.of(ImageRepository.class, ItineraryRepository.class,
+            WishlistRepository.class, WishlistItemRepository.class, ImageDigestRepository.class);
+
+    @Test
+    void everyRepositoryQueryExpandsToAPlannableStatement() {
+        int checked = 0;
+        for (Class<?> repository : REPOSITORIES) {
+            Class<?> domainType = ResolvableType.forClass(repository).as(CouchbaseRepository.class).resolveGeneric(0);
+            String typeFilter = IndexDefinition.typeFilter(domainType, TYPE_KEY);
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isDefault() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String label = repository.getSimpleName() + "." + method.getName();
+                String statement = QueryPlanVerifier.statementFor(method, domainType, BUCKET, TYPE_KEY);
+
+                assertFalse(statement.contains("#{"), label + ": " + statement);
+                assertTrue(statement.contains(" FROM " + BUCKET + " "), label + ": " + statement);
+                assertTrue(statement.contains(" WHERE " + typeFilter), label + ": " + statement);
+                assertEquals(method.getParameterCount(), highestParameter(statement), label + ": " + statement);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    void expandsAnnotatedQueryOfItineraryRepository() throws NoSuchMethodException {
+        Method method = ItineraryRepository.class.getMethod("findModifiedSince", Instant.class);
+
+        assertEquals("SELECT META().id AS __id, META().cas AS __cas, `triply`.* FROM `triply` "
+                        + "WHERE `_class` = \"" + Itinerary.class.getName() + "\" AND lastModified > $1",
+                QueryPlanVerifier.statementFor(method, Itinerary.class, BUCKET, TYPE_KEY));
+    }
+
+    @Test
+    void derivesCountAndExistsQueriesFromMethodNames() throws NoSuchMethodException {
+        Method count = WishlistItemRepository.class.getMethod("countByWishlistNameAndVisited", String.class, boolean.class);
+        Method exists = WishlistRepository.class.getMethod("existsByName", String.class);
+
+        assertEquals("SELECT COUNT(*) AS __count FROM `triply` WHERE `_class` = \"" + WishlistItem.class.getName()
+                        + "\" AND ((`wishlistName` = $1 AND `visited` = $2))",
+                QueryPlanVerifier.statementFor(count, WishlistItem.class, BUCKET, TYPE_KEY));
+        assertEquals("SELECT META().id AS __id FROM `triply` WHERE `_class` = \"com.futurize.triply.model.Wishlist\" "
+                        + "AND ((`name` = $1)) LIMIT 1",
+                QueryPlanVerifier.statementFor(exists, Wishlist.class, BUCKET, TYPE_KEY));
+    }
+
+    @Test
+    void rejectsUnsupportedExpressions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryPlanVerifier.expand("SELECT * FROM #{#n1ql.collection}", BUCKET, "true"));
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryPlanVerifier.expand("SELECT * FROM #{#n1ql.bucket} WHERE x = #{[0]}", BUCKET, "true"));
+    }
+
+    @Test
+    void detectsPrimaryScanNestedInExplainOutput() {
+        // EXPLAIN row of a query without a matching secondary index
+        JsonObject plan = JsonObject.fromJson("""
+                {"plan": {"#operator": "Sequence", "~children": [
+                  {"#operator": "Sequence", "~children": [
+                    {"#operator": "PrimaryScan3", "bucket": "triply", "index": "#primary",
+                     "index_projection": {"primary_key": true}, "keyspace": "triply",
+                     "namespace": "default", "using": "gsi"},
+                    {"#operator": "Fetch", "bucket": "triply", "keyspace": "triply", "namespace": "default"},
+                    {"#operator": "Parallel", "~child": {"#operator": "Sequence", "~children": [
+                      {"#operator": "Filter", "condition": "((`triply`.`notIndexed`) = $1)"},
+                      {"#operator": "InitialProject", "result_terms": [{"expr": "(meta(`triply`).`id`)"}]}]}}]},
+                  {"#operator": "Stream"}]},
+                 "text": "SELECT META().id FROM `triply` WHERE notIndexed = $1"}
+                """);
+
+        assertTrue(QueryPlanVerifier.usesPrimaryScan(plan));
+    }
+
+    @Test
+    void acceptsSecondaryIndexScans() {
+        // EXPLAIN row of a covered keyset query; "PrimaryScan" in text fields is not an operator
+        JsonObject plan = JsonObject.fromJson("""
+                {"plan": {"#operator": "Sequence", "~children": [
+                  {"#operator": "Sequence", "~children": [
+                    {"#operator": "IndexScan3", "bucket": "triply", "covers": ["cover ((`triply`.`name`))",
+                       "cover ((`triply`.`placeCount`))", "cover ((meta(`triply`).`id`))"],
+                     "index": "idx_wishlist_name", "keyspace": "triply", "namespace": "default",
+                     "spans": [{"exact": true, "range": [{"inclusion": 0, "index_key": "`name`", "low": "$1"}]}],
+                     "using": "gsi"},
+                    {"#operator": "Parallel", "~child": {"#operator": "Sequence", "~children": [
+                      {"#operator": "Filter", "condition": "(cover ((`triply`.`name`)) > $1)"},
+                      {"#operator": "InitialProject", "result_terms": [{"expr": "cover ((`triply`.`name`))"}]}]}}]},
+                  {"#operator": "Limit", "expr": "$2"},
+                  {"#operator": "Stream"}]},
+                 "text": "SELECT name FROM `triply` WHERE name > $1 /* not a PrimaryScan */ LIMIT $2"}
+                """);
+
+        assertFalse(QueryPlanVerifier.usesPrimaryScan(plan));
+        assertFalse(QueryPlanVerifier.usesPrimaryScan(null));
+    }
+
+    private static int highestParameter(String statement) {
+        int highest = 0;
+        Matcher parameter = PARAMETER.matcher(statement);
+        while (parameter.find()) {
+            highest = Math.max(highest, Integer.parseInt(parameter.group(1)));
+        }
+        return highest;
+    }
+}
@@ -0,0 +1,35 @@
+package com.futurize.triply.couchbase;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.couchbase.BucketDefinition;
+import org.testcontainers.couchbase.CouchbaseContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Runs the application against a throwaway Couchbase container with the declared
+ * indexes applied. Run with {@code mvn test -Pcouchbase-test}; needs Docker.
+ */
+@Tag("couchbase")
+@Testcontainers
+@SpringBootTest
+abstract class AbstractCouchbaseContainerTest {
+
+    @Container
+    static final CouchbaseContainer couchbase =
+            new CouchbaseContainer(DockerImageName.parse("couchbase/server:7.6.2"))
+                    .withBucket(new BucketDefinition("triply"));
+
+    @DynamicPropertySource
+    static void couchbaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.couchbase.connection-string", couchbase::getConnectionString);
+        registry.add("spring.couchbase.username", couchbase::getUsername);
+        registry.add("spring.couchbase.password", couchbase::getPassword);
+        // Checked by QueryPlanVerificationTest, which reports violations better than a failed context
+        registry.add("triply.couchbase.indexes.verify", () -> "false");
+    }
+}
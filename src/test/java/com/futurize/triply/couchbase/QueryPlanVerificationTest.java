@@ -0,0 +1,51 @@
+package com.futurize.triply.couchbase;
+
+import com.futurize.triply.config.CouchbaseIndexSynchronizer;
+import com.futurize.triply.config.QueryPlanVerifier;
+import com.futurize.triply.model.Itinerary;
+import com.futurize.triply.repository.ItineraryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.couchbase.repository.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the plan of every repository query against the declared indexes. The
+ * bucket has a primary index, so a query lacking a secondary index shows up as a
+ * primary scan rather than an error.
+ */
+class QueryPlanVerificationTest extends AbstractCouchbaseContainerTest {
+
+    @Autowired
+    private CouchbaseIndexSynchronizer indexSynchronizer;
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Test
+    void everyRepositoryQueryUsesASecondaryIndex() {
+        assertEquals(List.of(), queryPlanVerifier.verify());
+    }
+
+    @Test
+    void reapplyingIndexesKeepsPlansIntact() {
+        indexSynchronizer.apply();
+        assertEquals(List.of(), queryPlanVerifier.verify());
+    }
+
+    @Test
+    void reportsPrimaryScan() throws NoSuchMethodException {
+        // Every index is partial on the type filter, so the same query without it has no index to use
+        String query = ItineraryRepository.class.getMethod("findByNormalizedPlaceName", String.class)
+                .getAnnotation(Query.class).value();
+        String withoutTypeFilter = query.replace("#{#n1ql.filter} AND ", "");
+
+        assertNull(queryPlanVerifier.explain(queryPlanVerifier.expand(query, Itinerary.class)));
+        assertNotNull(queryPlanVerifier.explain(queryPlanVerifier.expand(withoutTypeFilter, Itinerary.class)));
+    }
+}
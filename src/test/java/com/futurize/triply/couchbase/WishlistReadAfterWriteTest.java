@@ -0,0 +1,63 @@
+package com.futurize.triply.couchbase;
+
+import com.futurize.triply.model.Wishlist;
+import com.futurize.triply.model.WishlistItem;
+import com.futurize.triply.repository.WishlistRepository;
+import com.futurize.triply.service.WishlistService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wishlist membership is read through N1QL; these check that a place added or
+ * removed, or a wishlist deleted, is reflected by the very next read.
+ */
+class WishlistReadAfterWriteTest extends AbstractCouchbaseContainerTest {
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Test
+    void addedPlaceIsReadBackImmediately() {
+        wishlistService.createWishlist("read-after-write");
+        wishlistService.addPlaceToWishlist("read-after-write", "Lisbon");
+
+        assertEquals(Set.of("Lisbon"), wishlistService.getWishlistPlaces("read-after-write"));
+        List<WishlistItem> items = wishlistService.listItems("read-after-write", null, 10, null);
+        assertEquals(List.of("Lisbon"), items.stream().map(WishlistItem::getPlaceName).toList());
+        assertEquals(1, wishlistService.getCounts("read-after-write").getTotal());
+    }
+
+    @Test
+    void deletedWishlistLeavesNoItemsBehind() {
+        wishlistService.createWishlist("delete-after-write");
+        wishlistService.addPlaceToWishlist("delete-after-write", "Porto");
+        wishlistService.deleteWishlist("delete-after-write");
+
+        wishlistService.createWishlist("delete-after-write");
+        assertTrue(wishlistService.getWishlistPlaces("delete-after-write").isEmpty());
+    }
+
+    @Test
+    void placeStoredInlineCanBeRemoved() {
+        Wishlist legacy = new Wishlist();
+        legacy.setId(Wishlist.idFor("not-migrated"));
+        legacy.setName("not-migrated");
+        legacy.setPlaceNames(new HashSet<>(Set.of("Rome", "Oslo")));
+        wishlistRepository.save(legacy);
+
+        wishlistService.removePlaceFromWishlist("not-migrated", "Rome");
+
+        assertEquals(Set.of("Oslo"), wishlistService.getWishlistPlaces("not-migrated"));
+        assertEquals(1, wishlistRepository.findById(Wishlist.idFor("not-migrated")).orElseThrow().getPlaceCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.futurize.triply.load;
+
+import com.futurize.triply.repository.ImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives one execution mode with concurrent requests that each block on a slow
+ * repository call, and records its throughput and p99 latency in
+ * {@link ExecutionModeLoadTest#results}. Storage is the embedded profile with the
+ * image repository mocked, so no Couchbase is needed.
+ */
+abstract class AbstractExecutionModeLoadTest {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AbstractExecutionModeLoadTest.class);
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(200);
+    private static final int CONCURRENCY = 800;
+    private static final int REQUESTS = 8000;
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private ImageRepository imageRepository;
+
+    @BeforeEach
+    void slowRepository() {
+        when(imageRepository.findById(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(BACKEND_LATENCY.toMillis());
+            return Optional.empty();
+        });
+    }
+
+    @Test
+    void slowQueriesUnderLoad() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Semaphore permits = new Semaphore(CONCURRENCY);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(REQUESTS));
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            permits.acquire();
+            // Distinct ids so no caching or request coalescing can short-circuit the backend
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/images/load-" + i)).build();
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies.add(System.nanoTime() - sent);
+                        if (failure != null || response.statusCode() != 404) {
+                            errors.incrementAndGet();
+                        }
+                        permits.release();
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        LoadResult result = new LoadResult(REQUESTS / (elapsed / 1e9), p99 / 1_000_000);
+        log.info("{}: {} req/s, p99 {} ms, {} errors", getClass().getSimpleName(),
+                Math.round(result.requestsPerSecond()), result.p99Millis(), errors.get());
+        assertEquals(0, errors.get());
+        ExecutionModeLoadTest.results.put(getClass().getSimpleName(), result);
+    }
+
+    record LoadResult(double requestsPerSecond, long p99Millis) {}
+}
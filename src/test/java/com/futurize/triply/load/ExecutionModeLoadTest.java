@@ -0,0 +1,62 @@
+package com.futurize.triply.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares request throughput and p99 latency between platform-thread and
+ * virtual-thread execution while every request blocks on a slow repository call.
+ * Tomcat's 200 platform threads cap throughput at about 1000 req/s, so with 800
+ * requests in flight virtual threads are expected to be clearly ahead on both.
+ * Run with {@code mvn test -Pload-test}.
+ */
+@Tag("load")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class ExecutionModeLoadTest {
+
+    static final Map<String, AbstractExecutionModeLoadTest.LoadResult> results = new ConcurrentHashMap<>();
+
+    @Nested
+    @Order(1)
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @ActiveProfiles("embedded")
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=false", "server.tomcat.threads.max=200",
+                    "triply.embedded.path=target/load-test/platform.log"})
+    class PlatformThreads extends AbstractExecutionModeLoadTest {
+    }
+
+    @Nested
+    @Order(2)
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @ActiveProfiles("embedded")
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.threads.virtual.enabled=true",
+                    "triply.embedded.path=target/load-test/virtual.log"})
+    class VirtualThreads extends AbstractExecutionModeLoadTest {
+    }
+
+    @AfterAll
+    static void virtualThreadsOutperformPlatformThreads() {
+        assertEquals(2, results.size(), "both execution modes must have completed: " + results.keySet());
+        AbstractExecutionModeLoadTest.LoadResult platform = results.get("PlatformThreads");
+        AbstractExecutionModeLoadTest.LoadResult virtual = results.get("VirtualThreads");
+        assertTrue(virtual.requestsPerSecond() > 1.5 * platform.requestsPerSecond(),
+                "virtual threads " + virtual + " vs platform threads " + platform);
+        assertTrue(virtual.p99Millis() < platform.p99Millis(),
+                "virtual threads " + virtual + " vs platform threads " + platform);
+    }
+}
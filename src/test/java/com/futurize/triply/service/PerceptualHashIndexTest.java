@@ -0,0 +1,114 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.ImageMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashIndexTest {
+
+    @Test
+    void findsExactAndNearMatchesClosestFirst() {
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        index.add(0b0000L, "exact", "A");
+        index.add(0b0011L, "two-bits", "B");
+        index.add(0b0001L, "one-bit", "C");
+        index.add(-1L, "far", "D");
+
+        List<ImageMatch> matches = index.nearest(0b0000L, 10, 2);
+
+        assertEquals(List.of("exact", "one-bit", "two-bits"), ids(matches));
+        assertEquals(List.of(0, 1, 2), distances(matches));
+        assertEquals("C", matches.get(1).getPlaceName());
+    }
+
+    @Test
+    void radiusSearchMatchesBruteForce() {
+        Random random = new Random(42);
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        List<Long> hashes = new ArrayList<>();
+        long[] clusters = {random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int i = 0; i < 3000; i++) {
+            // Clustered like photos of the same places, plus some unrelated images
+            long hash = i % 4 == 3 ? random.nextLong() : flipBits(clusters[i % 3], random.nextInt(12), random);
+            hashes.add(hash);
+            index.add(hash, "image-" + i, "place-" + (i % 3));
+        }
+
+        for (int q = 0; q < 200; q++) {
+            long query = flipBits(clusters[q % 3], random.nextInt(8), random);
+            int limit = 1 + random.nextInt(20);
+            int maxDistance = random.nextInt(16);
+
+            List<Integer> expected = hashes.stream()
+                    .map(hash -> Long.bitCount(hash ^ query))
+                    .filter(distance -> distance <= maxDistance)
+                    .sorted()
+                    .limit(limit)
+                    .toList();
+            List<ImageMatch> matches = index.nearest(query, limit, maxDistance);
+
+            assertEquals(expected, distances(matches), "query " + q);
+            for (ImageMatch match : matches) {
+                long hash = hashes.get(Integer.parseInt(match.getImageId().substring("image-".length())));
+                assertEquals(Long.bitCount(hash ^ query), match.getDistance());
+            }
+        }
+    }
+
+    @Test
+    void removedImagesAreNoLongerFoundButTheirSubtreeIs() {
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        index.add(0L, "root", "A");
+        index.add(0b1L, "child", "A");
+        index.add(0b11L, "grandchild", "A");
+
+        index.remove(0L, "root");
+        index.remove(0b1L, "child");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("grandchild"), ids(index.nearest(0L, 10, 64)));
+    }
+
+    @Test
+    void sameHashKeepsEveryImageOnce() {
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        index.add(7L, "first", "A");
+        index.add(7L, "second", "B");
+        index.add(7L, "first", "A");
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("first", "second"),
+                ids(index.nearest(7L, 10, 0)).stream().sorted().toList());
+    }
+
+    @Test
+    void emptyIndexAndZeroLimitReturnNothing() {
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        assertTrue(index.nearest(1L, 5, 64).isEmpty());
+        index.add(1L, "image", "A");
+        assertTrue(index.nearest(1L, 0, 64).isEmpty());
+    }
+
+    private static long flipBits(long hash, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            hash ^= 1L << random.nextInt(64);
+        }
+        return hash;
+    }
+
+    private static List<String> ids(List<ImageMatch> matches) {
+        return matches.stream().map(ImageMatch::getImageId).toList();
+    }
+
+    private static List<Integer> distances(List<ImageMatch> matches) {
+        return matches.stream().sorted(Comparator.comparingInt(ImageMatch::getDistance))
+                .map(ImageMatch::getDistance).toList();
+    }
+}
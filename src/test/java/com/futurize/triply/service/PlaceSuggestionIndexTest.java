@@ -0,0 +1,110 @@
+package com.futurize.triply.service;
+
+import com.futurize.triply.model.PlaceSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaceSuggestionIndexTest {
+
+    // Repositories are only read by run(); record and suggest work without them
+    private final PlaceSuggestionIndex index = new PlaceSuggestionIndex(null, null, null, null);
+
+    @Test
+    void completesPrefixMostPopularFirst() {
+        index.record("Paris", 5);
+        index.record("Parma", 2);
+        index.record("Porto", 9);
+        index.record("Pamplona", 7);
+
+        assertEquals(List.of("Pamplona", "Paris", "Parma"), names(index.suggest("pa", 10)));
+        assertEquals(List.of("Paris", "Parma"), names(index.suggest("par", 10)));
+        assertEquals(List.of("Pamplona"), names(index.suggest("pa", 1)));
+    }
+
+    @Test
+    void matchesCaseAndWhitespaceInsensitively() {
+        index.record("  New   York ", 1);
+        index.record("new york", 1);
+
+        List<PlaceSuggestion> suggestions = index.suggest("NEW Y", 5);
+        assertEquals(1, suggestions.size());
+        assertEquals("New   York", suggestions.get(0).getPlaceName());
+        assertEquals(2, suggestions.get(0).getPopularity());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void decrementsReorderSuggestions() {
+        index.record("Rome", 3);
+        index.record("Rotterdam", 2);
+        index.record("Rome", -2);
+
+        assertEquals(List.of("Rotterdam", "Rome"), names(index.suggest("ro", 10)));
+    }
+
+    @Test
+    void namesAreDroppedOnceTheirPopularityReachesZero() {
+        index.record("Rome", 1);
+        index.record("Romania", 1);
+        index.record("Rome", -1);
+        index.record("Rome", -1);
+
+        assertEquals(List.of("Romania"), names(index.suggest("rom", 10)));
+        assertEquals(1, index.size());
+
+        // A decrement never creates a name, and a removed name can come back
+        index.record("Roskilde", -1);
+        assertTrue(index.suggest("ros", 10).isEmpty());
+        index.record("Rome", 2);
+        assertEquals(List.of("Rome", "Romania"), names(index.suggest("rom", 10)));
+        assertEquals(2, index.suggest("rome", 1).get(0).getPopularity());
+    }
+
+    @Test
+    void fuzzyMatchAllowsOneEditForMediumQueries() {
+        index.record("Lisbon", 4);
+        index.record("London", 1);
+
+        // Substitution, deletion and insertion are each one edit away from a prefix of Lisbon
+        assertEquals(List.of("Lisbon"), names(index.suggest("lisbpn", 10)));
+        assertEquals(List.of("Lisbon"), names(index.suggest("lsbon", 10)));
+        assertEquals(List.of("Lisbon"), names(index.suggest("lissbo", 10)));
+        // Two edits are too many for a query of this length
+        assertTrue(index.suggest("lsbpn", 10).isEmpty());
+    }
+
+    @Test
+    void fuzzyMatchAllowsTwoEditsForLongQueriesAndNoneForShortOnes() {
+        index.record("Amsterdam", 1);
+        index.record("Ams", 1);
+
+        assertEquals(List.of("Amsterdam"), names(index.suggest("amstredam", 10)));
+        assertTrue(index.suggest("ans", 10).isEmpty());
+    }
+
+    @Test
+    void exactPrefixWinsOverFuzzyMatches() {
+        index.record("Berlin", 1);
+        index.record("Bern", 10);
+
+        assertEquals(List.of("Berlin"), names(index.suggest("berli", 10)));
+    }
+
+    @Test
+    void blankInputIsIgnored() {
+        index.record("   ", 1);
+        index.record(null, 1);
+
+        assertEquals(0, index.size());
+        assertTrue(index.suggest(" ", 5).isEmpty());
+        assertTrue(index.suggest("a", 0).isEmpty());
+    }
+
+    private static List<String> names(List<PlaceSuggestion> suggestions) {
+        return suggestions.stream().map(PlaceSuggestion::getPlaceName).toList();
+    }
+}
@@ -0,0 +1,149 @@
+package com.futurize.triply.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry, Duration.ofSeconds(5), true);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void concurrentCallersShareOneBackendCall() throws Exception {
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", this::blockingRead));
+        started.await(5, TimeUnit.SECONDS);
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", this::blockingRead)));
+        }
+        awaitShared(8);
+
+        release.countDown();
+        assertEquals("result-1", leader.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<String> follower : followers) {
+            assertEquals("result-1", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("triply.coalescing.calls").tag("outcome", "executed").counter().count());
+    }
+
+    @Test
+    void differentKeysAndOperationsDoNotShare() {
+        assertEquals("a", coalescer.execute("op", "a", () -> "a"));
+        assertEquals("b", coalescer.execute("op", "b", () -> "b"));
+        assertEquals("c", coalescer.execute("other", "a", () -> "c"));
+    }
+
+    @Test
+    void completedCallIsNotCached() {
+        coalescer.execute("op", "key", calls::incrementAndGet);
+        coalescer.execute("op", "key", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+        assertEquals(0.0, meterRegistry.get("triply.coalescing.inflight").gauge().value());
+    }
+
+    @Test
+    void failureReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("backend down");
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", () -> {
+            blockingRead();
+            throw failure;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", this::blockingRead));
+        awaitShared(1);
+
+        release.countDown();
+        assertSame(failure, causeOf(leader));
+        assertSame(failure, causeOf(follower));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void forgetStartsAFreshCallButEarlierWaitersKeepTheirs() throws Exception {
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", this::blockingRead));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> earlyFollower = CompletableFuture.supplyAsync(() -> coalescer.execute("op", "key", this::blockingRead));
+        awaitShared(1);
+
+        coalescer.forget("op", "key");
+        String afterWrite = coalescer.execute("op", "key", () -> "fresh");
+
+        assertEquals("fresh", afterWrite);
+        release.countDown();
+        assertEquals("result-1", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result-1", earlyFollower.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waiterGivesUpAfterTimeoutWithoutAffectingTheCall() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestCoalescer impatient = new RequestCoalescer(registry, Duration.ofMillis(50), true);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> impatient.execute("op", "key", this::blockingRead));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThrows(QueryTimeoutException.class, () -> impatient.execute("op", "key", this::blockingRead));
+
+        release.countDown();
+        assertEquals("result-1", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("triply.coalescing.calls").tag("outcome", "timed_out").counter().count());
+    }
+
+    @Test
+    void disabledCoalescerCallsThrough() {
+        RequestCoalescer disabled = new RequestCoalescer(new SimpleMeterRegistry(), Duration.ofSeconds(5), false);
+        disabled.execute("op", "key", calls::incrementAndGet);
+        disabled.execute("op", "key", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    private String blockingRead() {
+        int call = calls.incrementAndGet();
+        started.countDown();
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return "result-" + call;
+    }
+
+    private void awaitShared(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sharedCount() < followers && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(followers, (int) sharedCount());
+    }
+
+    private double sharedCount() {
+        var counter = meterRegistry.find("triply.coalescing.calls").tag("outcome", "shared").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+}
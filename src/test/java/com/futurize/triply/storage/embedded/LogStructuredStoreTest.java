@@ -0,0 +1,172 @@
+package com.futurize.triply.storage.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogStructuredStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackLatestValues() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("a", bytes("1"));
+            store.put("a", bytes("2"));
+            store.put("b", bytes("3"));
+
+            assertArrayEquals(bytes("2"), store.get("a").orElseThrow());
+            assertArrayEquals(bytes("3"), store.get("b").orElseThrow());
+            assertEquals(Optional.empty(), store.get("c"));
+        }
+    }
+
+    @Test
+    void tombstonesSurviveReopen() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("kept", bytes("1"));
+            store.put("deleted", bytes("2"));
+            assertTrue(store.delete("deleted"));
+            assertFalse(store.delete("deleted"));
+        }
+        try (LogStructuredStore store = open()) {
+            assertTrue(store.contains("kept"));
+            assertFalse(store.contains("deleted"));
+            assertEquals(List.of("kept"), List.copyOf(store.keys("")));
+        }
+    }
+
+    @Test
+    void recoversFromTruncatedTail() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("first", bytes("complete"));
+            store.put("second", bytes("torn"));
+        }
+        long size = Files.size(log());
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (LogStructuredStore store = open()) {
+            assertArrayEquals(bytes("complete"), store.get("first").orElseThrow());
+            assertFalse(store.contains("second"));
+            store.put("third", bytes("after recovery"));
+        }
+        try (LogStructuredStore store = open()) {
+            assertArrayEquals(bytes("complete"), store.get("first").orElseThrow());
+            assertArrayEquals(bytes("after recovery"), store.get("third").orElseThrow());
+        }
+    }
+
+    @Test
+    void recoversFromCorruptTail() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("first", bytes("complete"));
+            store.put("second", bytes("corrupt"));
+        }
+        // Flip a value byte of the last record so its checksum no longer matches
+        long valueByte = Files.size(log()) - 4 - 1;
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, valueByte);
+            b.put(0, (byte) (b.get(0) ^ 0xFF)).rewind();
+            channel.write(b, valueByte);
+        }
+
+        try (LogStructuredStore store = open()) {
+            assertArrayEquals(bytes("complete"), store.get("first").orElseThrow());
+            assertFalse(store.contains("second"));
+            assertTrue(Files.size(log()) < valueByte);
+        }
+    }
+
+    @Test
+    void compactionKeepsLiveKeys() throws IOException {
+        try (LogStructuredStore store = open()) {
+            for (int i = 0; i < 100; i++) {
+                store.put("key-" + (i % 10), bytes("value-" + i));
+            }
+            store.delete("key-0");
+            long before = store.sizeOnDisk();
+            assertTrue(store.garbageRatio() > 0.5);
+
+            store.compact();
+
+            assertTrue(store.sizeOnDisk() < before);
+            assertEquals(0.0, store.garbageRatio());
+            assertFalse(store.contains("key-0"));
+            for (int i = 1; i < 10; i++) {
+                assertArrayEquals(bytes("value-" + (90 + i)), store.get("key-" + i).orElseThrow());
+            }
+            store.put("key-0", bytes("after compaction"));
+        }
+        try (LogStructuredStore store = open()) {
+            assertEquals(10, store.keys("key-").size());
+            assertArrayEquals(bytes("after compaction"), store.get("key-0").orElseThrow());
+            assertArrayEquals(bytes("value-99"), store.get("key-9").orElseThrow());
+        }
+    }
+
+    @Test
+    void failedCompactionLeavesStoreUsable() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("a", bytes("1"));
+            store.put("a", bytes("2"));
+            // A directory where the compacted log would be written
+            Files.createDirectories(dir.resolve("triply.log.compact").resolve("blocker"));
+
+            assertThrows(IOException.class, store::compact);
+
+            assertArrayEquals(bytes("2"), store.get("a").orElseThrow());
+            store.put("b", bytes("3"));
+        }
+        try (LogStructuredStore store = open()) {
+            assertArrayEquals(bytes("2"), store.get("a").orElseThrow());
+            assertArrayEquals(bytes("3"), store.get("b").orElseThrow());
+        }
+    }
+
+    @Test
+    void failedCompactionRemovesPartialLog() throws IOException {
+        try (LogStructuredStore store = open()) {
+            store.put("a", bytes("1"));
+            store.put("b", bytes("2"));
+            // Cut the log under the store so copying the second record fails
+            try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.WRITE)) {
+                channel.truncate(Files.size(log()) - 1);
+            }
+
+            assertThrows(IOException.class, store::compact);
+
+            assertFalse(Files.exists(dir.resolve("triply.log.compact")));
+        }
+    }
+
+    private LogStructuredStore open() throws IOException {
+        return new LogStructuredStore(log(), false);
+    }
+
+    private Path log() {
+        return dir.resolve("triply.log");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}